@@ -3,6 +3,8 @@ package lol.maki.cargotracker.application;
 import lol.maki.cargotracker.domain.model.cargo.Cargo;
 import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
 
+import java.util.List;
+
 /**
  * This interface provides a way to let other parts of the system know about events that
  * have occurred.
@@ -17,6 +19,12 @@ public interface ApplicationEvents {
 	 */
 	void cargoWasHandled(HandlingEvent event);
 
+	/**
+	 * A batch of cargo has been handled.
+	 * @param events handling events
+	 */
+	void cargosWereHandled(List<HandlingEvent> events);
+
 	/**
 	 * A cargo has been misdirected.
 	 * @param cargo cargo
@@ -35,4 +43,10 @@ public interface ApplicationEvents {
 	 */
 	void receivedHandlingEventRegistrationAttempt(HandlingEventRegistrationAttempt attempt);
 
+	/**
+	 * A batch of handling event registration attempts is received.
+	 * @param attempts handling event registration attempts
+	 */
+	void receivedHandlingEventRegistrationAttempts(List<HandlingEventRegistrationAttempt> attempts);
+
 }
@@ -7,6 +7,7 @@ import lol.maki.cargotracker.domain.model.location.UnLocode;
 import lol.maki.cargotracker.domain.service.RoutingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,14 +30,18 @@ public class BookingService {
 
 	private final CargoFactory cargoFactory;
 
+	private final ApplicationEventPublisher eventPublisher;
+
 	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
 	public BookingService(final CargoRepository cargoRepository, final LocationRepository locationRepository,
-			final RoutingService routingService, final CargoFactory cargoFactory) {
+			final RoutingService routingService, final CargoFactory cargoFactory,
+			final ApplicationEventPublisher eventPublisher) {
 		this.cargoRepository = cargoRepository;
 		this.locationRepository = locationRepository;
 		this.routingService = routingService;
 		this.cargoFactory = cargoFactory;
+		this.eventPublisher = eventPublisher;
 	}
 
 	/**
@@ -86,6 +91,7 @@ public class BookingService {
 
 		cargo.assignToRoute(itinerary);
 		cargoRepository.store(cargo);
+		eventPublisher.publishEvent(new CargoDeliveryUpdated(trackingId));
 
 		logger.info("Assigned cargo {} to new route", trackingId);
 	}
@@ -105,6 +111,7 @@ public class BookingService {
 		cargo.specifyNewRoute(routeSpecification);
 
 		cargoRepository.store(cargo);
+		eventPublisher.publishEvent(new CargoDeliveryUpdated(trackingId));
 		logger.info("Changed destination for cargo {} to {}", trackingId, routeSpecification.destination());
 	}
 
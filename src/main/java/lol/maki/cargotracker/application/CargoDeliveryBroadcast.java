@@ -0,0 +1,15 @@
+package lol.maki.cargotracker.application;
+
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+
+/**
+ * Published in-process on every node once the delivery of a cargo has been updated on
+ * any node, after the {@link CargoDeliveryUpdated} event of that node has been committed
+ * and relayed through the message broker. Listeners that push updates to clients
+ * connected to any node should listen to this event rather than to the local one.
+ *
+ * @param trackingId tracking id of the updated cargo
+ */
+public record CargoDeliveryBroadcast(TrackingId trackingId) {
+
+}
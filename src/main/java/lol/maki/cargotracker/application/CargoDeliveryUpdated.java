@@ -0,0 +1,14 @@
+package lol.maki.cargotracker.application;
+
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+
+/**
+ * Published in-process when the delivery of a cargo has been recalculated and stored, for
+ * example after an inspection or a change of route. Read models derived from the cargo
+ * should be refreshed once the surrounding transaction commits.
+ *
+ * @param trackingId tracking id of the updated cargo
+ */
+public record CargoDeliveryUpdated(TrackingId trackingId) {
+
+}
@@ -6,12 +6,15 @@ import lol.maki.cargotracker.domain.model.cargo.TrackingId;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
 import lol.maki.cargotracker.domain.model.handling.HandlingEventRepository;
 import lol.maki.cargotracker.domain.model.handling.HandlingHistory;
 
 import java.lang.invoke.MethodHandles;
+import java.util.Collection;
 
 /**
  * Cargo inspection service.
@@ -25,13 +28,16 @@ public class CargoInspectionService {
 
 	private final HandlingEventRepository handlingEventRepository;
 
+	private final ApplicationEventPublisher eventPublisher;
+
 	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
 	public CargoInspectionService(final ApplicationEvents applicationEvents, final CargoRepository cargoRepository,
-			final HandlingEventRepository handlingEventRepository) {
+			final HandlingEventRepository handlingEventRepository, final ApplicationEventPublisher eventPublisher) {
 		this.applicationEvents = applicationEvents;
 		this.cargoRepository = cargoRepository;
 		this.handlingEventRepository = handlingEventRepository;
+		this.eventPublisher = eventPublisher;
 	}
 
 	/**
@@ -53,6 +59,83 @@ public class CargoInspectionService {
 
 		cargo.deriveDeliveryProgress(handlingHistory);
 
+		deliveryUpdated(cargo);
+	}
+
+	/**
+	 * Inspect cargo after it has been handled, see {@link #inspectCargo(TrackingId,
+	 * HandlingEvent)}.
+	 * @param trackingId cargo tracking id
+	 * @param handlingEventId id of the most recently completed of the handling events
+	 * that triggered the inspection
+	 */
+	@Transactional
+	public void inspectCargo(final TrackingId trackingId, final long handlingEventId) {
+		final HandlingEvent handlingEvent = handlingEventRepository.find(handlingEventId);
+		if (handlingEvent == null) {
+			logger.debug("Handling event {} not found, inspecting cargo {} from its history", handlingEventId,
+					trackingId);
+			inspectCargo(trackingId);
+			return;
+		}
+		inspectCargo(trackingId, handlingEvent);
+	}
+
+	/**
+	 * Inspect cargo after it has been handled several times, see
+	 * {@link #inspectCargo(TrackingId, HandlingEvent)}.
+	 * @param trackingId cargo tracking id
+	 * @param handlingEventIds ids of the handling events that triggered the inspection
+	 */
+	@Transactional
+	public void inspectCargo(final TrackingId trackingId, final Collection<Long> handlingEventIds) {
+		Validate.notEmpty(handlingEventIds, "Handling event ids are required");
+
+		HandlingEvent mostRecentEvent = null;
+		for (long handlingEventId : handlingEventIds) {
+			final HandlingEvent handlingEvent = handlingEventRepository.find(handlingEventId);
+			if (handlingEvent == null) {
+				logger.debug("Handling event {} not found, inspecting cargo {} from its history", handlingEventId,
+						trackingId);
+				inspectCargo(trackingId);
+				return;
+			}
+			if (mostRecentEvent == null || handlingEvent.completionTime().isAfter(mostRecentEvent.completionTime())) {
+				mostRecentEvent = handlingEvent;
+			}
+		}
+		inspectCargo(trackingId, mostRecentEvent);
+	}
+
+	/**
+	 * Inspect cargo after it has been handled. The delivery is updated from the handling
+	 * event alone when it was completed after the last known event of the cargo, and
+	 * derived from the complete handling history only for events that arrive out of
+	 * order.
+	 * @param trackingId cargo tracking id
+	 * @param handlingEvent the most recently completed of the handling events that
+	 * triggered the inspection
+	 */
+	@Transactional
+	public void inspectCargo(final TrackingId trackingId, final HandlingEvent handlingEvent) {
+		Validate.notNull(trackingId, "Tracking ID is required");
+		Validate.notNull(handlingEvent, "Handling event is required");
+
+		final Cargo cargo = cargoRepository.find(trackingId);
+		if (cargo == null) {
+			logger.warn("Can't inspect non-existing cargo {}", trackingId);
+			return;
+		}
+
+		if (!cargo.deriveDeliveryProgress(handlingEvent)) {
+			logger.debug("Handling event of cargo {} completed out of order, replaying handling history", trackingId);
+			cargo.deriveDeliveryProgress(handlingEventRepository.lookupHandlingHistoryOfCargo(trackingId));
+		}
+
+		deliveryUpdated(cargo);
+	}
+
+	private void deliveryUpdated(final Cargo cargo) {
 		if (cargo.delivery().isMisdirected()) {
 			applicationEvents.cargoWasMisdirected(cargo);
 		}
@@ -62,6 +145,7 @@ public class CargoInspectionService {
 		}
 
 		cargoRepository.store(cargo);
+		eventPublisher.publishEvent(new CargoDeliveryUpdated(cargo.trackingId()));
 	}
 
 }
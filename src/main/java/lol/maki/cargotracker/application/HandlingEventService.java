@@ -14,6 +14,8 @@ import lol.maki.cargotracker.domain.model.voyage.VoyageNumber;
 
 import java.lang.invoke.MethodHandles;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Handling event service.
@@ -74,4 +76,44 @@ public class HandlingEventService {
 		logger.info("Registered handling event: {}", event);
 	}
 
+	/**
+	 * Registers a batch of handling events in the system, and notifies interested
+	 * parties that the cargos have been handled.
+	 * <p>
+	 * The cargos, voyages and locations referenced by the attempts are loaded with one
+	 * query per aggregate type, and all handling events are stored in a single
+	 * transaction. Attempts that only differ in their tracking id come from the same
+	 * report, and are created together in one pass. Attempts that can't be turned into a
+	 * handling event are logged and skipped without affecting the rest of the batch.
+	 * @param attempts handling event registration attempts
+	 * @return the registered handling events
+	 */
+	@Transactional
+	public List<HandlingEvent> registerHandlingEvents(final List<HandlingEventRegistrationAttempt> attempts) {
+		final Instant registrationTime = Instant.now();
+		final List<HandlingEventFactory.Handling> handlings = attempts.stream()
+			.map(attempt -> new HandlingEventFactory.Handling(attempt.getTrackingId(),
+					new HandlingEventFactory.Report(attempt.getCompletionTime(), attempt.getVoyageNumber(),
+							attempt.getUnLocode(), attempt.getType())))
+			.toList();
+
+		final List<HandlingEvent> events = new ArrayList<>(attempts.size());
+		handlingEventFactory.createHandlingEvents(registrationTime, handlings).forEach((report, result) -> {
+			events.addAll(result.events());
+			result.errors()
+				.forEach((trackingId, e) -> logger.error("Rejected handling event registration attempt of {} in {}",
+						trackingId, report, e));
+		});
+		if (events.isEmpty()) {
+			return events;
+		}
+
+		handlingEventRepository.storeAll(events);
+
+		applicationEvents.cargosWereHandled(events);
+
+		logger.info("Registered {} handling events out of {} attempts", events.size(), attempts.size());
+		return events;
+	}
+
 }
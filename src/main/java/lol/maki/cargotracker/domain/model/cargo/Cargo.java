@@ -46,14 +46,14 @@ import java.util.List;
  * port etc), are captured in this aggregate.
  */
 @jakarta.persistence.Entity(name = "Cargo")
-@Table(name = "Cargo")
+@Table(name = "Cargo", indexes = @Index(name = "cargo_tracking_id_idx", columnList = "tracking_id", unique = true))
 public class Cargo implements Entity<Cargo> {
 
 	@Id
 	@GeneratedValue(strategy = GenerationType.AUTO)
 	public long id;
 
-	@Column(name = "tracking_id", unique = true)
+	@Column(name = "tracking_id")
 	public String trackingId;
 
 	@ManyToOne(fetch = FetchType.LAZY)
@@ -185,6 +185,28 @@ public class Cargo implements Entity<Cargo> {
 				handlingHistory.filterOnCargo(new TrackingId(this.trackingId)));
 	}
 
+	/**
+	 * Updates the delivery progress with a single handling event in constant time, instead
+	 * of replaying the complete handling history. This is only possible when the event
+	 * was completed after the last event the current delivery was derived from. Otherwise
+	 * the delivery is left unchanged and the caller must fall back to
+	 * {@link #deriveDeliveryProgress(HandlingHistory)}.
+	 * @param handlingEvent handling event of this cargo
+	 * @return True if the delivery was updated, false if the complete handling history is
+	 * required.
+	 */
+	public boolean deriveDeliveryProgress(final HandlingEvent handlingEvent) {
+		Validate.notNull(handlingEvent, "Handling event is required");
+		Validate.isTrue(trackingId.equals(handlingEvent.cargo().trackingId().idString()),
+				"Handling event belongs to another cargo");
+
+		if (delivery == null || !delivery.isCompletedAfterLastEvent(handlingEvent)) {
+			return false;
+		}
+		this.delivery = delivery.updateOnHandling(routeSpecification(), itinerary(), handlingEvent);
+		return true;
+	}
+
 	@Override
 	public boolean sameIdentityAs(final Cargo other) {
 		return other != null && trackingId.equals(other.trackingId);
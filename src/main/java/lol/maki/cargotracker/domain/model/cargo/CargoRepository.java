@@ -1,5 +1,7 @@
 package lol.maki.cargotracker.domain.model.cargo;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 
 public interface CargoRepository {
@@ -11,12 +13,60 @@ public interface CargoRepository {
 	 */
 	Cargo find(TrackingId trackingId);
 
+	/**
+	 * Finds all cargo with any of the given ids, using a single query.
+	 * @param trackingIds Ids
+	 * @return The cargo that were found, in no particular order.
+	 */
+	List<Cargo> findAll(Collection<TrackingId> trackingIds);
+
+	/**
+	 * Same as {@link #find(TrackingId)}, for implementations that can load the itinerary
+	 * and the locations, voyages and last handling event the cargo refers to together
+	 * with the cargo, for displaying it.
+	 * @param trackingId Id
+	 * @return Cargo if found, else {@code null}
+	 */
+	default Cargo findWithItinerary(TrackingId trackingId) {
+		return find(trackingId);
+	}
+
+	/**
+	 * Finds the current delivery version of a cargo without loading the cargo or its
+	 * handling history.
+	 * @param trackingId Id
+	 * @return Delivery version if the cargo was found, else {@code null}
+	 */
+	DeliveryVersion findDeliveryVersion(TrackingId trackingId);
+
 	/**
 	 * Finds all cargo.
 	 * @return All cargo.
 	 */
 	List<Cargo> getAll();
 
+	/**
+	 * Lists the cargos matching a filter one page at a time, ordered by tracking id. A
+	 * page starts after the last tracking id of the previous one, so it is found without
+	 * counting or skipping the cargos of the previous pages.
+	 * @param filter criteria
+	 * @param afterTrackingId last tracking id of the previous page, or {@code null} for
+	 * the first page
+	 * @param limit maximum number of cargos
+	 * @return Summaries of the matching cargos, ordered by tracking id.
+	 */
+	default List<CargoSummary> findSummaries(CargoSummaryFilter filter, TrackingId afterTrackingId, int limit) {
+		return getAll().stream()
+			.map(cargo -> new CargoSummary(cargo.trackingId().idString(), cargo.origin().unLocode().idString(),
+					cargo.routeSpecification().destination().unLocode().idString(),
+					cargo.routeSpecification().arrivalDeadline(), cargo.delivery().routingStatus()))
+			.filter(filter::matches)
+			.filter(summary -> afterTrackingId == null || summary.trackingId().compareTo(afterTrackingId.idString()) > 0)
+			.sorted(Comparator.comparing(CargoSummary::trackingId))
+			.limit(limit)
+			.toList();
+	}
+
 	/**
 	 * Saves given cargo.
 	 * @param cargo cargo to save
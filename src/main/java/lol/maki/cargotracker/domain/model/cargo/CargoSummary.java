@@ -0,0 +1,18 @@
+package lol.maki.cargotracker.domain.model.cargo;
+
+import java.time.Instant;
+
+/**
+ * What is shown of a cargo when listing cargos, read without loading the cargo, its
+ * itinerary or its delivery.
+ *
+ * @param trackingId tracking id
+ * @param origin UN locode of the origin
+ * @param destination UN locode of the destination in the route specification
+ * @param arrivalDeadline arrival deadline in the route specification
+ * @param routingStatus routing status of the delivery
+ */
+public record CargoSummary(String trackingId, String origin, String destination, Instant arrivalDeadline,
+		RoutingStatus routingStatus) {
+
+}
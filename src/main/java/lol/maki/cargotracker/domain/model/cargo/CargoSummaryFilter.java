@@ -0,0 +1,36 @@
+package lol.maki.cargotracker.domain.model.cargo;
+
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+
+import java.time.Instant;
+
+/**
+ * Criteria for listing cargos. A {@code null} criterion matches every cargo.
+ *
+ * @param routingStatus routing status of the delivery
+ * @param origin origin of the cargo
+ * @param destination destination in the route specification
+ * @param arrivalDeadlineFrom earliest arrival deadline, inclusive
+ * @param arrivalDeadlineBefore latest arrival deadline, exclusive
+ */
+public record CargoSummaryFilter(RoutingStatus routingStatus, UnLocode origin, UnLocode destination,
+		Instant arrivalDeadlineFrom, Instant arrivalDeadlineBefore) {
+
+	/**
+	 * Matches every cargo.
+	 */
+	public static final CargoSummaryFilter NONE = new CargoSummaryFilter(null, null, null, null, null);
+
+	/**
+	 * @param summary cargo summary
+	 * @return True if the cargo matches all the criteria.
+	 */
+	public boolean matches(CargoSummary summary) {
+		return (routingStatus == null || routingStatus == summary.routingStatus())
+				&& (origin == null || origin.idString().equals(summary.origin()))
+				&& (destination == null || destination.idString().equals(summary.destination()))
+				&& (arrivalDeadlineFrom == null || !summary.arrivalDeadline().isBefore(arrivalDeadlineFrom))
+				&& (arrivalDeadlineBefore == null || summary.arrivalDeadline().isBefore(arrivalDeadlineBefore));
+	}
+
+}
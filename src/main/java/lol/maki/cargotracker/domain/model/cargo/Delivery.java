@@ -92,6 +92,36 @@ public class Delivery implements ValueObject<Delivery> {
 		return new Delivery(lastEvent, itinerary, routeSpecification);
 	}
 
+	/**
+	 * Creates a new delivery snapshot after the cargo has been handled, without replaying
+	 * the handling history. This gives the same result as {@link #derivedFrom} as long as
+	 * the event was completed after the last event of this delivery, see
+	 * {@link #isCompletedAfterLastEvent(HandlingEvent)}.
+	 * @param routeSpecification route specification
+	 * @param itinerary itinerary
+	 * @param handlingEvent the handling event
+	 * @return An up to date delivery.
+	 */
+	Delivery updateOnHandling(RouteSpecification routeSpecification, Itinerary itinerary,
+			HandlingEvent handlingEvent) {
+		Validate.notNull(routeSpecification, "Route specification is required");
+		Validate.isTrue(isCompletedAfterLastEvent(handlingEvent),
+				"Handling event must be completed after the last event of the delivery");
+
+		return new Delivery(handlingEvent, itinerary, routeSpecification);
+	}
+
+	/**
+	 * @param handlingEvent handling event
+	 * @return True if the handling event was completed after the last event that this
+	 * delivery was derived from, or if the delivery has no last event.
+	 */
+	boolean isCompletedAfterLastEvent(HandlingEvent handlingEvent) {
+		Validate.notNull(handlingEvent, "Handling event is required");
+
+		return lastEvent == null || handlingEvent.completionTime().isAfter(lastEvent.completionTime());
+	}
+
 	/**
 	 * Internal constructor.
 	 * @param lastEvent last event
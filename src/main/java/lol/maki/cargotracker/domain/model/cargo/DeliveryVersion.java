@@ -0,0 +1,25 @@
+package lol.maki.cargotracker.domain.model.cargo;
+
+import java.time.Instant;
+
+/**
+ * Identifies the state of a cargo's delivery as seen by tracking clients. It changes
+ * whenever the delivery is recalculated, which happens for every handling event that is
+ * registered for the cargo, so two equal versions always describe the same tracking
+ * information. Both values are kept with the delivery of the cargo, so the version is
+ * read from a single row.
+ *
+ * @param calculatedAt when the delivery was last calculated
+ * @param lastHandlingEventId id of the handling event the delivery was last derived
+ * from, or {@code null} if the cargo has not been handled
+ */
+public record DeliveryVersion(Instant calculatedAt, Long lastHandlingEventId) {
+
+	/**
+	 * @return When the delivery was last calculated.
+	 */
+	public Instant lastModified() {
+		return calculatedAt;
+	}
+
+}
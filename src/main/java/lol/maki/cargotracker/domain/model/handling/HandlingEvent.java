@@ -33,7 +33,9 @@ import java.util.Objects;
  * {@link Type#CUSTOMS}.
  */
 @Entity(name = "HandlingEvent")
-@Table(name = "HandlingEvent")
+@Table(name = "HandlingEvent",
+		indexes = @Index(name = "handling_event_cargo_completion_idx",
+				columnList = "cargo_id, completion_time, location_id, type, voyage_id"))
 public final class HandlingEvent implements DomainEvent<HandlingEvent> {
 
 	@Id
@@ -12,6 +12,16 @@ import lol.maki.cargotracker.domain.model.voyage.VoyageNumber;
 import lol.maki.cargotracker.domain.model.voyage.VoyageRepository;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 /**
  * Creates handling events.
@@ -51,6 +61,60 @@ public class HandlingEventFactory {
 		final Voyage voyage = findVoyage(voyageNumber);
 		final Location location = findLocation(unlocode);
 
+		return newHandlingEvent(cargo, voyage, location, registrationTime, completionTime, type);
+	}
+
+	/**
+	 * Creates the handling events of a batch of handlings. Handlings that only differ in
+	 * their tracking id come from the same report, for example a vessel being loaded with
+	 * a whole manifest, and are created together. The cargos, voyages and locations of the
+	 * whole batch are resolved with one query per aggregate type instead of one per
+	 * handling.
+	 * @param registrationTime time when the batch was received by the system
+	 * @param handlings handlings to create handling events from
+	 * @return The handling events of each report that could be created, and why the
+	 * others couldn't, in the order the reports first appear in the batch.
+	 */
+	public Map<Report, Result> createHandlingEvents(Instant registrationTime, List<Handling> handlings) {
+		final Map<Report, List<TrackingId>> reports = new LinkedHashMap<>();
+		for (Handling handling : handlings) {
+			reports.computeIfAbsent(handling.report(), report -> new ArrayList<>()).add(handling.trackingId());
+		}
+		final References references = prefetch(handlings.stream().map(Handling::trackingId).collect(toSet()),
+				reports.keySet().stream().map(Report::voyageNumber).filter(Objects::nonNull).collect(toSet()),
+				reports.keySet().stream().map(Report::unLocode).collect(toSet()));
+
+		final Map<Report, Result> results = new LinkedHashMap<>();
+		reports.forEach((report, trackingIds) -> results.put(report,
+				references.createHandlingEvents(registrationTime, report, trackingIds)));
+		return results;
+	}
+
+	private References prefetch(Collection<TrackingId> trackingIds, Collection<VoyageNumber> voyageNumbers,
+			Collection<UnLocode> unlocodes) {
+		final Map<TrackingId, Cargo> cargos = findCargos(trackingIds);
+		final Map<VoyageNumber, Voyage> voyages = voyageNumbers.isEmpty() ? Map.of()
+				: voyageRepository.findAll(voyageNumbers)
+					.stream()
+					.collect(toMap(Voyage::voyageNumber, Function.identity()));
+		final Map<UnLocode, Location> locations = unlocodes.isEmpty() ? Map.of()
+				: locationRepository.findAll(unlocodes)
+					.stream()
+					.collect(toMap(Location::unLocode, Function.identity()));
+
+		return new References(cargos, voyages, locations);
+	}
+
+	private Map<TrackingId, Cargo> findCargos(Collection<TrackingId> trackingIds) {
+		return trackingIds.isEmpty() ? Map.of()
+				: cargoRepository.findAll(trackingIds)
+					.stream()
+					.collect(toMap(Cargo::trackingId, Function.identity()));
+	}
+
+	private static HandlingEvent newHandlingEvent(Cargo cargo, Voyage voyage, Location location,
+			Instant registrationTime, Instant completionTime, HandlingEvent.Type type)
+			throws CannotCreateHandlingEventException {
 		try {
 			if (voyage == null) {
 				return new HandlingEvent(cargo, completionTime, registrationTime, type, location);
@@ -93,4 +157,93 @@ public class HandlingEventFactory {
 		return location;
 	}
 
+	/**
+	 * Cargo, voyages and locations resolved for a batch of handlings.
+	 */
+	private static final class References {
+
+		private final Map<TrackingId, Cargo> cargos;
+
+		private final Map<VoyageNumber, Voyage> voyages;
+
+		private final Map<UnLocode, Location> locations;
+
+		private References(Map<TrackingId, Cargo> cargos, Map<VoyageNumber, Voyage> voyages,
+				Map<UnLocode, Location> locations) {
+			this.cargos = cargos;
+			this.voyages = voyages;
+			this.locations = locations;
+		}
+
+		private Result createHandlingEvents(Instant registrationTime, Report report,
+				Collection<TrackingId> trackingIds) {
+			final List<HandlingEvent> events = new ArrayList<>(trackingIds.size());
+			final Map<TrackingId, CannotCreateHandlingEventException> errors = new LinkedHashMap<>();
+
+			final Voyage voyage = report.voyageNumber() == null ? null : voyages.get(report.voyageNumber());
+			final Location location = locations.get(report.unLocode());
+			// Applies to every cargo of the report
+			CannotCreateHandlingEventException reportError = null;
+			if (report.voyageNumber() != null && voyage == null) {
+				reportError = new UnknownVoyageException(report.voyageNumber());
+			}
+			else if (location == null) {
+				reportError = new UnknownLocationException(report.unLocode());
+			}
+
+			for (TrackingId trackingId : trackingIds) {
+				if (reportError != null) {
+					errors.put(trackingId, reportError);
+					continue;
+				}
+				final Cargo cargo = cargos.get(trackingId);
+				if (cargo == null) {
+					errors.put(trackingId, new UnknownCargoException(trackingId));
+					continue;
+				}
+				try {
+					events.add(newHandlingEvent(cargo, voyage, location, registrationTime,
+							report.completionTime(), report.type()));
+				}
+				catch (CannotCreateHandlingEventException e) {
+					errors.put(trackingId, e);
+				}
+			}
+			return new Result(events, errors);
+		}
+
+	}
+
+	/**
+	 * A cargo handled as part of a report.
+	 *
+	 * @param trackingId cargo tracking id
+	 * @param report report the cargo was handled in
+	 */
+	public record Handling(TrackingId trackingId, Report report) {
+	}
+
+	/**
+	 * What the handlings of a report that lists several cargos have in common.
+	 *
+	 * @param completionTime when the event was completed, for example finished loading
+	 * @param voyageNumber voyage number, or null if the event isn't part of a voyage
+	 * @param unLocode United Nations Location Code for the location of the event
+	 * @param type type of event
+	 */
+	public record Report(Instant completionTime, VoyageNumber voyageNumber, UnLocode unLocode,
+			HandlingEvent.Type type) {
+	}
+
+	/**
+	 * Handling events created from a report that lists several cargos.
+	 *
+	 * @param events handling events that could be created, in the order of the tracking
+	 * ids
+	 * @param errors why the handling events of the other tracking ids couldn't be created
+	 * @see HandlingEventFactory#createHandlingEvents(Instant, List)
+	 */
+	public record Result(List<HandlingEvent> events, Map<TrackingId, CannotCreateHandlingEventException> errors) {
+	}
+
 }
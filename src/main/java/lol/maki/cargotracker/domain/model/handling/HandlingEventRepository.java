@@ -2,6 +2,8 @@ package lol.maki.cargotracker.domain.model.handling;
 
 import lol.maki.cargotracker.domain.model.cargo.TrackingId;
 
+import java.util.List;
+
 /**
  * Handling event repository.
  */
@@ -13,10 +15,34 @@ public interface HandlingEventRepository {
 	 */
 	void store(HandlingEvent event);
 
+	/**
+	 * Stores a batch of (new) handling events.
+	 * @param events handling events to save
+	 */
+	void storeAll(List<HandlingEvent> events);
+
+	/**
+	 * Finds a handling event using its id.
+	 * @param id handling event id
+	 * @return Handling event if found, else {@code null}
+	 */
+	HandlingEvent find(long id);
+
 	/**
 	 * @param trackingId cargo tracking id
 	 * @return The handling history of this cargo
 	 */
 	HandlingHistory lookupHandlingHistoryOfCargo(TrackingId trackingId);
 
+	/**
+	 * Same as {@code lookupHandlingHistoryOfCargo(trackingId).distinctEventsByCompletionTime()},
+	 * for implementations that can order and deduplicate the events more efficiently.
+	 * @param trackingId cargo tracking id
+	 * @return A distinct list (no duplicate registrations) of the handling events of this
+	 * cargo, ordered by completion time.
+	 */
+	default List<HandlingEvent> lookupDistinctHandlingEventsOfCargo(TrackingId trackingId) {
+		return lookupHandlingHistoryOfCargo(trackingId).distinctEventsByCompletionTime();
+	}
+
 }
@@ -38,21 +38,26 @@ public class HandlingHistory implements ValueObject<HandlingHistory> {
 	 * @return Most recently completed event, or null if the delivery history is empty.
 	 */
 	public HandlingEvent mostRecentlyCompletedEvent() {
-		final List<HandlingEvent> distinctEvents = distinctEventsByCompletionTime();
-		if (distinctEvents.isEmpty()) {
-			return null;
-		}
-		else {
-			return distinctEvents.get(distinctEvents.size() - 1);
+		// A single pass, duplicate registrations do not change the result
+		HandlingEvent mostRecent = null;
+		for (HandlingEvent event : handlingEvents) {
+			if (mostRecent == null || !event.completionTime().isBefore(mostRecent.completionTime())) {
+				mostRecent = event;
+			}
 		}
+		return mostRecent;
 	}
 
 	/**
 	 * Filters handling history events to remove events for unrelated cargo.
 	 * @param trackingId the trackingId of the cargo to filter events for.
-	 * @return A new handling history with events matching the supplied tracking id.
+	 * @return A handling history with events matching the supplied tracking id. This
+	 * history itself if all events already match.
 	 */
 	public HandlingHistory filterOnCargo(TrackingId trackingId) {
+		if (handlingEvents.stream().allMatch(he -> he.cargo().trackingId().sameValueAs(trackingId))) {
+			return this;
+		}
 		List<HandlingEvent> events = handlingEvents.stream()
 			.filter(he -> he.cargo().trackingId().sameValueAs(trackingId))
 			.collect(Collectors.toList());
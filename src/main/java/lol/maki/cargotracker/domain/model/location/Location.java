@@ -21,6 +21,9 @@ public final class Location implements lol.maki.cargotracker.domain.shared.Entit
 	@Column(nullable = false)
 	public String name;
 
+	@Transient
+	private volatile UnLocode unLocodeValue;
+
 	/**
 	 * Special Location object that marks an unknown location.
 	 */
@@ -50,7 +53,13 @@ public final class Location implements lol.maki.cargotracker.domain.shared.Entit
 	 * @return UN Locode for this location.
 	 */
 	public UnLocode unLocode() {
-		return new UnLocode(unlocode);
+		// Created on first use and kept, since validating the code is not free
+		UnLocode value = unLocodeValue;
+		if (value == null) {
+			value = new UnLocode(unlocode);
+			unLocodeValue = value;
+		}
+		return value;
 	}
 
 	/**
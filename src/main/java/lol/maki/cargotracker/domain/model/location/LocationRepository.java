@@ -1,5 +1,6 @@
 package lol.maki.cargotracker.domain.model.location;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface LocationRepository {
@@ -11,6 +12,13 @@ public interface LocationRepository {
 	 */
 	Location find(UnLocode unLocode);
 
+	/**
+	 * Finds all locations with any of the given unlocodes, using a single query.
+	 * @param unLocodes UNLocodes.
+	 * @return The locations that were found, in no particular order.
+	 */
+	List<Location> findAll(Collection<UnLocode> unLocodes);
+
 	/**
 	 * Finds all locations.
 	 * @return All locations.
@@ -19,4 +27,16 @@ public interface LocationRepository {
 
 	Location store(Location location);
 
+	/**
+	 * Parses a UN Locode. Repositories that keep their locations in memory may return the
+	 * UN Locode of a known location, so that it isn't validated again.
+	 * @param unlocode UN Locode string.
+	 * @return UN Locode.
+	 * @throws IllegalArgumentException if the string is not a valid UN Locode
+	 * @throws NullPointerException if the string is null
+	 */
+	default UnLocode unLocode(String unlocode) {
+		return new UnLocode(unlocode);
+	}
+
 }
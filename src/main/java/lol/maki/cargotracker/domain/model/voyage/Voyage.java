@@ -3,9 +3,11 @@ package lol.maki.cargotracker.domain.model.voyage;
 import jakarta.persistence.*;
 import lol.maki.cargotracker.domain.model.location.Location;
 import org.apache.commons.lang3.Validate;
+import org.springframework.data.domain.DomainEvents;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -78,6 +80,14 @@ public class Voyage implements lol.maki.cargotracker.domain.shared.Entity<Voyage
 		return "Voyage " + voyageNumber;
 	}
 
+	/**
+	 * @return events published by the repository whenever the voyage is saved.
+	 */
+	@DomainEvents
+	Collection<Object> domainEvents() {
+		return List.of(new VoyageStored(voyageNumber()));
+	}
+
 	Voyage() {
 		// Needed by Hibernate
 	}
@@ -1,5 +1,8 @@
 package lol.maki.cargotracker.domain.model.voyage;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface VoyageRepository {
 
 	/**
@@ -9,6 +12,19 @@ public interface VoyageRepository {
 	 */
 	Voyage find(VoyageNumber voyageNumber);
 
+	/**
+	 * Finds all voyages with any of the given voyage numbers, using a single query.
+	 * @param voyageNumbers voyage numbers
+	 * @return The voyages that were found, in no particular order.
+	 */
+	List<Voyage> findAll(Collection<VoyageNumber> voyageNumbers);
+
+	/**
+	 * Finds all voyages, along with their schedules.
+	 * @return All voyages.
+	 */
+	List<Voyage> getAll();
+
 	void store(Voyage voyage);
 
 }
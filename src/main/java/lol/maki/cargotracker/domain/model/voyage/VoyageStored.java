@@ -0,0 +1,12 @@
+package lol.maki.cargotracker.domain.model.voyage;
+
+/**
+ * Published when a voyage has been stored, so its schedule may have changed. Anything
+ * derived from the schedules of the voyages, such as route candidates, should be
+ * refreshed once the surrounding transaction commits.
+ *
+ * @param voyageNumber number of the stored voyage
+ */
+public record VoyageStored(VoyageNumber voyageNumber) {
+
+}
@@ -6,15 +6,20 @@ import com.pathfinder.internal.GraphDAOStub;
 import com.pathfinder.internal.GraphTraversalServiceImpl;
 import jakarta.persistence.EntityManager;
 import lol.maki.cargotracker.domain.model.cargo.CargoRepository;
+import lol.maki.cargotracker.infrastructure.persistence.directory.LocationDirectory;
+import lol.maki.cargotracker.infrastructure.persistence.jpa.LocationRepositoryJPA;
 import lol.maki.cargotracker.infrastructure.sampledata.SampleDataGenerator;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.transaction.PlatformTransactionManager;
 import lol.maki.cargotracker.domain.model.handling.HandlingEventRepository;
 import lol.maki.cargotracker.domain.model.location.LocationRepository;
 import lol.maki.cargotracker.domain.model.voyage.VoyageRepository;
 
 @Configuration
+@EnableCaching
 public class InfrastructureConfig {
 
 	@Bean
@@ -34,6 +39,12 @@ public class InfrastructureConfig {
 		return sampleDataGenerator;
 	}
 
+	@Bean
+	@Primary
+	public LocationDirectory locationDirectory(LocationRepositoryJPA locationRepositoryJPA) {
+		return new LocationDirectory(locationRepositoryJPA);
+	}
+
 	private GraphDAO graphDAO() {
 		return new GraphDAOStub();
 	}
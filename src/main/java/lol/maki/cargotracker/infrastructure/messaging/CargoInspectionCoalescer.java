@@ -0,0 +1,337 @@
+package lol.maki.cargotracker.infrastructure.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lol.maki.cargotracker.application.CargoInspectionService;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debounces cargo inspections per tracking id.
+ * <p/>
+ * When a cargo is handled many times within a short period, for example while a vessel
+ * is discharged, each cargo handled event would otherwise trigger its own inspection of
+ * the same cargo. Instead, an inspection is scheduled when the first request for a cargo
+ * arrives and postponed by every further request within the window, but never beyond the
+ * maximum delay after the first request. A single inspection then covers all coalesced
+ * requests, starting from the most recently completed of their handling events.
+ * <p/>
+ * Every cargo is inspected on one of a fixed number of single threaded lanes, chosen by
+ * its tracking id, so inspections of the same cargo never run concurrently and can't
+ * overwrite each other's delivery. Requests are only acknowledged once the inspection
+ * that covers them has succeeded, which lets a message-driven caller acknowledge the
+ * messages it received only then. A failed inspection is retried after the maximum
+ * delay.
+ * <p/>
+ * With a window of zero, cargo is inspected as soon as its lane is free, and only the
+ * requests that arrive before that are coalesced.
+ * <p/>
+ * The coalescer doesn't depend on how the requests are delivered, it is used with both
+ * the broker and the in-memory application events.
+ */
+@Component
+public class CargoInspectionCoalescer implements SmartLifecycle {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	/**
+	 * Beyond this number of handling events, replaying the handling history of the cargo
+	 * takes fewer queries than looking up the events one by one.
+	 */
+	private static final int MAX_HANDLING_EVENT_IDS = 32;
+
+	private final CargoInspectionService cargoInspectionService;
+
+	private final Duration window;
+
+	private final Duration maxDelay;
+
+	private final int lanes;
+
+	private final Counter coalesced;
+
+	private final Counter executed;
+
+	private final Counter failed;
+
+	private final Map<TrackingId, PendingInspection> pending = new ConcurrentHashMap<>();
+
+	private volatile ScheduledExecutorService[] schedulers;
+
+	private volatile boolean running;
+
+	public CargoInspectionCoalescer(CargoInspectionService cargoInspectionService,
+			@Value("${cargoInspection.coalescing.window:500ms}") Duration window,
+			@Value("${cargoInspection.coalescing.maxDelay:5s}") Duration maxDelay,
+			@Value("${cargoInspection.coalescing.threads:2}") int lanes, MeterRegistry meterRegistry) {
+		this.cargoInspectionService = cargoInspectionService;
+		this.window = window;
+		this.maxDelay = maxDelay;
+		this.lanes = lanes;
+		this.coalesced = Counter.builder("cargotracker.inspections")
+			.description("Cargo inspection requests")
+			.tag("outcome", "coalesced")
+			.register(meterRegistry);
+		this.executed = Counter.builder("cargotracker.inspections")
+			.description("Cargo inspection requests")
+			.tag("outcome", "executed")
+			.register(meterRegistry);
+		this.failed = Counter.builder("cargotracker.inspections")
+			.description("Cargo inspection requests")
+			.tag("outcome", "failed")
+			.register(meterRegistry);
+	}
+
+	/**
+	 * Requests an inspection of a handled cargo that doesn't need to be acknowledged.
+	 * @param trackingId cargo tracking id
+	 * @param handlingEventId id of the handling event, or {@code null} if unknown
+	 */
+	public void submit(TrackingId trackingId, Long handlingEventId) {
+		submit(trackingId, handlingEventId, null);
+	}
+
+	/**
+	 * Requests an inspection of a handled cargo.
+	 * @param trackingId cargo tracking id
+	 * @param handlingEventId id of the most recently completed handling event of the
+	 * request, or {@code null} if unknown
+	 * @param acknowledgement run once the cargo has been inspected, or {@code null}
+	 */
+	public void submit(TrackingId trackingId, Long handlingEventId, Runnable acknowledgement) {
+		if (!running) {
+			// Stopped, the request is never acknowledged if the inspection fails
+			final PendingInspection inspection = new PendingInspection(0, handlingEventId, acknowledgement);
+			if (inspect(trackingId, inspection)) {
+				acknowledge(inspection);
+			}
+			return;
+		}
+		final long now = System.nanoTime();
+		try {
+			pending.compute(trackingId, (key, inspection) -> {
+				if (inspection == null) {
+					inspection = new PendingInspection(now + maxDelay.toNanos(), handlingEventId, acknowledgement);
+				}
+				else {
+					coalesced.increment();
+					inspection.future.cancel(false);
+					inspection.add(handlingEventId, acknowledgement);
+				}
+				final long delay = Math.max(0, Math.min(window.toNanos(), inspection.deadline - now));
+				schedule(key, inspection, delay);
+				return inspection;
+			});
+		}
+		catch (RejectedExecutionException e) {
+			// Stopped concurrently. Either stop() runs the pending inspection, or the request is
+			// never acknowledged.
+			logger.debug("Inspection of cargo {} submitted while stopping", trackingId);
+		}
+	}
+
+	private void schedule(TrackingId trackingId, PendingInspection inspection, long delay) {
+		inspection.future = lane(trackingId).schedule(() -> flush(trackingId, inspection), delay,
+				TimeUnit.NANOSECONDS);
+	}
+
+	private ScheduledExecutorService lane(TrackingId trackingId) {
+		return schedulers[Math.floorMod(trackingId.hashCode(), schedulers.length)];
+	}
+
+	private void flush(TrackingId trackingId, PendingInspection inspection) {
+		if (!pending.remove(trackingId, inspection)) {
+			return;
+		}
+		if (inspect(trackingId, inspection)) {
+			acknowledge(inspection);
+		}
+		else if (running) {
+			retry(trackingId, inspection);
+		}
+	}
+
+	/**
+	 * Schedules a failed inspection again, together with the requests that arrived while
+	 * it was running.
+	 */
+	private void retry(TrackingId trackingId, PendingInspection failedInspection) {
+		try {
+			pending.compute(trackingId, (key, inspection) -> {
+				if (inspection == null) {
+					inspection = failedInspection;
+				}
+				else {
+					inspection.future.cancel(false);
+					inspection.addAll(failedInspection);
+				}
+				schedule(key, inspection, maxDelay.toNanos());
+				return inspection;
+			});
+		}
+		catch (RejectedExecutionException e) {
+			logger.debug("Not retrying inspection of cargo {} while stopping", trackingId);
+		}
+	}
+
+	private boolean inspect(TrackingId trackingId, PendingInspection inspection) {
+		executed.increment();
+		try {
+			if (inspection.handlingEventIds == null) {
+				cargoInspectionService.inspectCargo(trackingId);
+			}
+			else if (inspection.handlingEventIds.size() == 1) {
+				cargoInspectionService.inspectCargo(trackingId, inspection.handlingEventIds.first());
+			}
+			else {
+				cargoInspectionService.inspectCargo(trackingId, inspection.handlingEventIds);
+			}
+			return true;
+		}
+		catch (RuntimeException e) {
+			failed.increment();
+			logger.error("Failed to inspect cargo {}", trackingId, e);
+			return false;
+		}
+	}
+
+	private static void acknowledge(PendingInspection inspection) {
+		for (Runnable acknowledgement : inspection.acknowledgements) {
+			try {
+				acknowledgement.run();
+			}
+			catch (RuntimeException e) {
+				logger.warn("Failed to acknowledge an inspection request", e);
+			}
+		}
+	}
+
+	@Override
+	public void start() {
+		final ScheduledExecutorService[] executors = new ScheduledExecutorService[lanes];
+		for (int i = 0; i < lanes; i++) {
+			final String name = "cargo-inspection-" + (i + 1);
+			final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+				final Thread thread = new Thread(runnable, name);
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+			executors[i] = executor;
+		}
+		schedulers = executors;
+		running = true;
+	}
+
+	/**
+	 * Stops scheduling and runs the inspections that are still pending right away.
+	 */
+	@Override
+	public void stop() {
+		running = false;
+		// Lets running inspections finish, and drops the delayed ones
+		for (ScheduledExecutorService scheduler : schedulers) {
+			scheduler.shutdown();
+		}
+		try {
+			for (ScheduledExecutorService scheduler : schedulers) {
+				scheduler.awaitTermination(10, TimeUnit.SECONDS);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (TrackingId trackingId : List.copyOf(pending.keySet())) {
+			final PendingInspection inspection = pending.get(trackingId);
+			if (inspection != null) {
+				flush(trackingId, inspection);
+			}
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Starts before and stops after the listeners that submit inspections.
+	 */
+	@Override
+	public int getPhase() {
+		return SmartLifecycle.DEFAULT_PHASE - 1;
+	}
+
+	/**
+	 * An inspection that is waiting to run. Only modified while it is in the pending map,
+	 * by the thread that holds its entry.
+	 */
+	private static final class PendingInspection {
+
+		private final long deadline;
+
+		/**
+		 * Ids of the handling events of the coalesced requests, or {@code null} if a
+		 * request didn't carry one or there are too many, so that the handling history
+		 * must be replayed.
+		 */
+		private SortedSet<Long> handlingEventIds;
+
+		private final List<Runnable> acknowledgements = new ArrayList<>();
+
+		private ScheduledFuture<?> future;
+
+		private PendingInspection(long deadline, Long handlingEventId, Runnable acknowledgement) {
+			this.deadline = deadline;
+			this.handlingEventIds = handlingEventId == null ? null : new TreeSet<>(List.of(handlingEventId));
+			if (acknowledgement != null) {
+				this.acknowledgements.add(acknowledgement);
+			}
+		}
+
+		private void add(Long handlingEventId, Runnable acknowledgement) {
+			addHandlingEventIds(handlingEventId == null ? null : List.of(handlingEventId));
+			if (acknowledgement != null) {
+				acknowledgements.add(acknowledgement);
+			}
+		}
+
+		private void addAll(PendingInspection other) {
+			addHandlingEventIds(other.handlingEventIds);
+			acknowledgements.addAll(other.acknowledgements);
+		}
+
+		private void addHandlingEventIds(Collection<Long> ids) {
+			if (ids == null) {
+				handlingEventIds = null;
+			}
+			else if (handlingEventIds != null) {
+				handlingEventIds.addAll(ids);
+				if (handlingEventIds.size() > MAX_HANDLING_EVENT_IDS) {
+					handlingEventIds = null;
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,262 @@
+package lol.maki.cargotracker.infrastructure.messaging.inmemory;
+
+import lol.maki.cargotracker.application.ApplicationEvents;
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.application.HandlingEventService;
+import lol.maki.cargotracker.domain.model.cargo.Cargo;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.domain.model.handling.CannotCreateHandlingEventException;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.infrastructure.messaging.CargoInspectionCoalescer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory implementation, for single-node deployments that don't need a broker.
+ * <p>
+ * Events are processed by a fixed number of lanes, each a worker thread with a bounded
+ * queue. Everything about a cargo goes to the same lane, selected by its tracking id, so
+ * it is processed in order, like messages of the same group with JMS. When a lane's queue
+ * is full, dispatching blocks until there is room, which slows down the producers instead
+ * of running out of memory.
+ * <p>
+ * Cargo inspections are dispatched after the transaction that handled the cargo has
+ * committed. Work dispatched by a lane's own worker, for example the inspection after a
+ * registration, runs on that worker right after its current task instead of being queued,
+ * so a worker never blocks on a full queue. Events are lost if the application stops
+ * abruptly.
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "applicationEvents.transport", havingValue = "inmemory")
+public class InMemoryApplicationEvents implements ApplicationEvents, SmartLifecycle {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private static final long POLL_TIMEOUT_MILLIS = 100;
+
+	private final ObjectProvider<HandlingEventService> handlingEventService;
+
+	private final ObjectProvider<CargoInspectionCoalescer> cargoInspectionCoalescer;
+
+	private final List<Lane> lanes;
+
+	private final ThreadLocal<Lane> currentLane = new ThreadLocal<>();
+
+	private volatile boolean running;
+
+	/**
+	 * The services are looked up lazily, since they depend on application events.
+	 */
+	public InMemoryApplicationEvents(ObjectProvider<HandlingEventService> handlingEventService,
+			ObjectProvider<CargoInspectionCoalescer> cargoInspectionCoalescer,
+			@Value("${applicationEvents.inmemory.threads:4}") int threads,
+			@Value("${applicationEvents.inmemory.capacity:1000}") int capacity) {
+		this.handlingEventService = handlingEventService;
+		this.cargoInspectionCoalescer = cargoInspectionCoalescer;
+		this.lanes = new ArrayList<>(threads);
+		for (int i = 1; i <= threads; i++) {
+			lanes.add(new Lane("application-events-" + i, capacity));
+		}
+	}
+
+	@Override
+	public void cargoWasHandled(HandlingEvent event) {
+		logger.info("Cargo was handled {}", event.cargo());
+		inspectAfterCommit(event);
+	}
+
+	@Override
+	public void cargosWereHandled(List<HandlingEvent> events) {
+		logger.info("{} cargos were handled", events.size());
+		// The coalescer merges inspections of the same cargo
+		events.forEach(this::inspectAfterCommit);
+	}
+
+	@Override
+	public void cargoWasMisdirected(Cargo cargo) {
+		logger.info("Cargo was misdirected {}", cargo);
+	}
+
+	@Override
+	public void cargoHasArrived(Cargo cargo) {
+		logger.info("Cargo has arrived {}", cargo);
+	}
+
+	@Override
+	public void receivedHandlingEventRegistrationAttempt(HandlingEventRegistrationAttempt attempt) {
+		logger.info("Received handling event registration attempt {}", attempt);
+		dispatch(lane(attempt.getTrackingId()), () -> {
+			try {
+				handlingEventService.getObject()
+					.registerHandlingEvent(attempt.getCompletionTime(), attempt.getTrackingId(),
+							attempt.getVoyageNumber(), attempt.getUnLocode(), attempt.getType());
+			}
+			catch (CannotCreateHandlingEventException e) {
+				logger.error("Rejected handling event registration attempt {}", attempt, e);
+			}
+		});
+	}
+
+	@Override
+	public void receivedHandlingEventRegistrationAttempts(List<HandlingEventRegistrationAttempt> attempts) {
+		logger.info("Received {} handling event registration attempts", attempts.size());
+		// One batch per lane, so the inspections that follow stay on the lane of each cargo
+		final Map<Lane, List<HandlingEventRegistrationAttempt>> batches = new LinkedHashMap<>();
+		for (HandlingEventRegistrationAttempt attempt : attempts) {
+			batches.computeIfAbsent(lane(attempt.getTrackingId()), lane -> new ArrayList<>()).add(attempt);
+		}
+		batches.forEach((lane, batch) -> dispatch(lane,
+				() -> handlingEventService.getObject().registerHandlingEvents(batch)));
+	}
+
+	private void inspectAfterCommit(HandlingEvent event) {
+		final TrackingId trackingId = event.cargo().trackingId();
+		final Runnable inspection = () -> cargoInspectionCoalescer.getObject().submit(trackingId, event.id);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					dispatch(lane(trackingId), inspection);
+				}
+			});
+		}
+		else {
+			dispatch(lane(trackingId), inspection);
+		}
+	}
+
+	private void dispatch(Lane lane, Runnable task) {
+		final Lane current = currentLane.get();
+		if (current != null) {
+			current.followUps.add(task);
+		}
+		else {
+			lane.put(task);
+		}
+	}
+
+	private Lane lane(TrackingId trackingId) {
+		return lanes.get(Math.floorMod(trackingId.idString().hashCode(), lanes.size()));
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		for (Lane lane : lanes) {
+			lane.start();
+		}
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		for (Lane lane : lanes) {
+			lane.join();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	private final class Lane implements Runnable {
+
+		private final String name;
+
+		private final BlockingQueue<Runnable> queue;
+
+		/**
+		 * Only accessed by the worker.
+		 */
+		private final Deque<Runnable> followUps = new ArrayDeque<>();
+
+		private Thread worker;
+
+		Lane(String name, int capacity) {
+			this.name = name;
+			this.queue = new ArrayBlockingQueue<>(capacity);
+		}
+
+		void start() {
+			worker = new Thread(this, name);
+			worker.start();
+		}
+
+		void join() {
+			try {
+				worker.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		void put(Runnable task) {
+			if (!running) {
+				throw new IllegalStateException("In-memory application events are not running");
+			}
+			try {
+				queue.put(task);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while dispatching to " + name, e);
+			}
+		}
+
+		@Override
+		public void run() {
+			currentLane.set(this);
+			// Drains the queue before stopping
+			while (running || !queue.isEmpty()) {
+				final Runnable task;
+				try {
+					task = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				if (task == null) {
+					continue;
+				}
+				execute(task);
+				while (!followUps.isEmpty()) {
+					execute(followUps.poll());
+				}
+			}
+		}
+
+		private void execute(Runnable task) {
+			try {
+				task.run();
+			}
+			catch (RuntimeException e) {
+				logger.error("Failed to process application event on {}", name, e);
+			}
+		}
+
+	}
+
+}
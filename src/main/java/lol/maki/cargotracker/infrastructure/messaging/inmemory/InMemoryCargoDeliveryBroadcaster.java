@@ -0,0 +1,30 @@
+package lol.maki.cargotracker.infrastructure.messaging.inmemory;
+
+import lol.maki.cargotracker.application.CargoDeliveryBroadcast;
+import lol.maki.cargotracker.application.CargoDeliveryUpdated;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Publishes committed {@link CargoDeliveryUpdated} events as {@link CargoDeliveryBroadcast}
+ * events on this node only, for single-node deployments with in-memory application events
+ * that have no broker to relay them through.
+ */
+@Component
+@ConditionalOnProperty(name = "applicationEvents.transport", havingValue = "inmemory")
+public class InMemoryCargoDeliveryBroadcaster {
+
+	private final ApplicationEventPublisher applicationEventPublisher;
+
+	public InMemoryCargoDeliveryBroadcaster(ApplicationEventPublisher applicationEventPublisher) {
+		this.applicationEventPublisher = applicationEventPublisher;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCargoDeliveryUpdated(CargoDeliveryUpdated event) {
+		applicationEventPublisher.publishEvent(new CargoDeliveryBroadcast(event.trackingId()));
+	}
+
+}
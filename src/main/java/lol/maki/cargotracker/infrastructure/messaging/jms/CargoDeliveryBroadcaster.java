@@ -0,0 +1,67 @@
+package lol.maki.cargotracker.infrastructure.messaging.jms;
+
+import jakarta.jms.Topic;
+import lol.maki.cargotracker.application.CargoDeliveryBroadcast;
+import lol.maki.cargotracker.application.CargoDeliveryUpdated;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import org.apache.activemq.command.ActiveMQTopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.core.JmsOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Relays committed {@link CargoDeliveryUpdated} events to every node through a topic, and
+ * publishes them there as {@link CargoDeliveryBroadcast} events, including on the node
+ * that updated the cargo.
+ * <p>
+ * The topic subscriptions are not durable, so a node misses the updates sent while it
+ * is disconnected. That is fine for pushing tracking information, since a client that
+ * reconnects receives the current information again.
+ * <p>
+ * With in-memory application events there is no broker, and the events are published
+ * locally instead, see
+ * {@link lol.maki.cargotracker.infrastructure.messaging.inmemory.InMemoryCargoDeliveryBroadcaster}.
+ */
+@Component
+@ConditionalOnProperty(name = "applicationEvents.transport", havingValue = "outbox", matchIfMissing = true)
+public class CargoDeliveryBroadcaster {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private static final Topic TOPIC = new ActiveMQTopic(Destinations.CARGO_DELIVERY_UPDATED_TOPIC);
+
+	private final JmsOperations jmsOperations;
+
+	private final ApplicationEventPublisher applicationEventPublisher;
+
+	public CargoDeliveryBroadcaster(JmsOperations jmsOperations, ApplicationEventPublisher applicationEventPublisher) {
+		this.jmsOperations = jmsOperations;
+		this.applicationEventPublisher = applicationEventPublisher;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCargoDeliveryUpdated(CargoDeliveryUpdated event) {
+		try {
+			jmsOperations.convertAndSend(TOPIC, event.trackingId().idString());
+		}
+		catch (JmsException e) {
+			// The delivery has been committed, subscribers get it when they reconnect
+			logger.warn("Failed to broadcast the delivery update of {}", event.trackingId(), e);
+		}
+	}
+
+	@JmsListener(destination = Destinations.CARGO_DELIVERY_UPDATED_TOPIC,
+			containerFactory = "cargoDeliveryUpdatedListenerContainerFactory")
+	public void onMessage(String trackingId) {
+		applicationEventPublisher.publishEvent(new CargoDeliveryBroadcast(new TrackingId(trackingId)));
+	}
+
+}
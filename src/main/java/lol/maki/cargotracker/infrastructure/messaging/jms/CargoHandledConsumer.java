@@ -1,10 +1,15 @@
 package lol.maki.cargotracker.infrastructure.messaging.jms;
 
-import lol.maki.cargotracker.application.CargoInspectionService;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.TextMessage;
 import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.infrastructure.messaging.CargoInspectionCoalescer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.support.converter.MessageConversionException;
 import org.springframework.stereotype.Component;
 
 import java.lang.invoke.MethodHandles;
@@ -14,24 +19,50 @@ import java.lang.invoke.MethodHandles;
  * service.
  * <p>
  * This is a programmatic hook into the JMS infrastructure to make cargo inspection
- * message-driven.
+ * message-driven. Messages are acknowledged individually by the
+ * {@link CargoInspectionCoalescer}, once the cargo has been inspected, and redelivered by
+ * the broker if the inspection never succeeds.
  */
 
 @Component
+@ConditionalOnProperty(name = "applicationEvents.transport", havingValue = "outbox", matchIfMissing = true)
 public class CargoHandledConsumer {
 
-	private final CargoInspectionService cargoInspectionService;
+	/**
+	 * Optional message property with the id of the most recently completed handling event
+	 * of the cargo, which allows the cargo to be inspected without its handling history.
+	 */
+	static final String HANDLING_EVENT_ID = "handlingEventId";
+
+	private final CargoInspectionCoalescer cargoInspectionCoalescer;
 
 	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-	public CargoHandledConsumer(CargoInspectionService cargoInspectionService) {
-		this.cargoInspectionService = cargoInspectionService;
+	public CargoHandledConsumer(CargoInspectionCoalescer cargoInspectionCoalescer) {
+		this.cargoInspectionCoalescer = cargoInspectionCoalescer;
+	}
+
+	@JmsListener(destination = Destinations.CARGO_HANDLED_QUEUE,
+			concurrency = "${cargoHandledConsumer.concurrency:4}",
+			containerFactory = "cargoHandledListenerContainerFactory")
+	public void onMessage(Message message) throws JMSException {
+		if (!(message instanceof TextMessage textMessage)) {
+			throw new MessageConversionException("Expected a text message with a tracking id, got " + message);
+		}
+		final String trackingidString = textMessage.getText();
+		final Long handlingEventId = message.propertyExists(HANDLING_EVENT_ID)
+				? message.getLongProperty(HANDLING_EVENT_ID) : null;
+		logger.info("CargoHandledQueue#onMessage({}, {})", trackingidString, handlingEventId);
+		cargoInspectionCoalescer.submit(new TrackingId(trackingidString), handlingEventId, () -> acknowledge(message));
 	}
 
-	@JmsListener(destination = Destinations.CARGO_HANDLED_QUEUE)
-	public void onMessage(String trackingidString) {
-		logger.info("CargoHandledQueue#onMessage({})", trackingidString);
-		cargoInspectionService.inspectCargo(new TrackingId(trackingidString));
+	private static void acknowledge(Message message) {
+		try {
+			message.acknowledge();
+		}
+		catch (JMSException e) {
+			logger.warn("Failed to acknowledge {}, it will be redelivered", message, e);
+		}
 	}
 
 }
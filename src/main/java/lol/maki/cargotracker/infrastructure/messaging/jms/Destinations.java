@@ -10,6 +10,10 @@ public final class Destinations {
 
 	public static final String HANDLING_EVENT_REGISTRATION_ATTEMPT_QUEUE = "HandlingEventRegistrationAttemptQueue";
 
+	public static final String HANDLING_EVENT_REGISTRATION_ATTEMPT_BATCH_QUEUE = "HandlingEventRegistrationAttemptBatchQueue";
+
 	public static final String REJECTED_REGISTRATION_ATTEMPTS_QUEUE = "RejectedRegistrationAttemptsQueue";
 
+	public static final String CARGO_DELIVERY_UPDATED_TOPIC = "CargoDeliveryUpdatedTopic";
+
 }
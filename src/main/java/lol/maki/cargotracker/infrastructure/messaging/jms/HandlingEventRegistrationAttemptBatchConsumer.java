@@ -0,0 +1,267 @@
+package lol.maki.cargotracker.infrastructure.messaging.jms;
+
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.application.HandlingEventService;
+import lol.maki.cargotracker.domain.model.handling.CannotCreateHandlingEventException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumes messages with lists of handling event registration attempts in batches, as an
+ * alternative to the message-at-a-time listener of
+ * {@link HandlingEventRegistrationAttemptConsumer}.
+ * <p>
+ * Each consumer thread receives messages in a transacted JMS session until they hold the
+ * batch size of attempts, waiting at most the maximum wait after the first message. The
+ * attempts are registered in a single database transaction, and the messages are
+ * acknowledged together by committing the session.
+ * <p>
+ * If the batch can't be registered, the attempts are registered one at a time instead.
+ * Messages that can't be converted to attempts, and attempts that fail with an unexpected
+ * error, are forwarded to the rejected registration attempts queue in the same session,
+ * so a single poison message never blocks the rest of the batch.
+ * <p>
+ * When the connection to the broker fails, each consumer thread reconnects with an
+ * exponential backoff until it is stopped.
+ */
+@Component
+@ConditionalOnExpression("${handlingEventRegistrationAttemptConsumer.batch.enabled:false}"
+		+ " and '${applicationEvents.transport:outbox}' == 'outbox'")
+public class HandlingEventRegistrationAttemptBatchConsumer implements SmartLifecycle {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private static final long POLL_TIMEOUT_MILLIS = 1000;
+
+	private static final long INITIAL_BACKOFF_MILLIS = 1000;
+
+	private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+	private final HandlingEventService handlingEventService;
+
+	private final ConnectionFactory connectionFactory;
+
+	private final MessageConverter messageConverter;
+
+	private final int batchSize;
+
+	private final Duration maxWait;
+
+	private final int consumers;
+
+	private final List<Thread> threads = new ArrayList<>();
+
+	private volatile CountDownLatch stopped;
+
+	private volatile boolean running;
+
+	public HandlingEventRegistrationAttemptBatchConsumer(HandlingEventService handlingEventService,
+			ConnectionFactory connectionFactory, ObjectProvider<MessageConverter> messageConverter,
+			@Value("${handlingEventRegistrationAttemptConsumer.batch.size:500}") int batchSize,
+			@Value("${handlingEventRegistrationAttemptConsumer.batch.maxWait:200ms}") Duration maxWait,
+			@Value("${handlingEventRegistrationAttemptConsumer.batch.consumers:2}") int consumers) {
+		this.handlingEventService = handlingEventService;
+		this.connectionFactory = connectionFactory;
+		this.messageConverter = messageConverter.getIfAvailable(SimpleMessageConverter::new);
+		this.batchSize = batchSize;
+		this.maxWait = maxWait;
+		this.consumers = consumers;
+	}
+
+	@Override
+	public void start() {
+		stopped = new CountDownLatch(1);
+		running = true;
+		for (int i = 1; i <= consumers; i++) {
+			final Thread thread = new Thread(this::consume, "registration-batch-consumer-" + i);
+			threads.add(thread);
+			thread.start();
+		}
+		logger.info("Consuming handling event registration attempts in batches of up to {}", batchSize);
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		stopped.countDown();
+		for (Thread thread : threads) {
+			try {
+				thread.join(POLL_TIMEOUT_MILLIS * 2 + maxWait.toMillis());
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		threads.clear();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Consumes until stopped, and reconnects whenever the connection fails.
+	 */
+	private void consume() {
+		long backoff = INITIAL_BACKOFF_MILLIS;
+		while (running) {
+			try (Connection connection = connectionFactory.createConnection()) {
+				connection.start();
+				backoff = INITIAL_BACKOFF_MILLIS;
+				consume(connection);
+			}
+			catch (JMSException e) {
+				if (!running) {
+					return;
+				}
+				logger.error("Batch consumer lost its connection, reconnecting in {} ms", backoff, e);
+				try {
+					stopped.await(backoff, TimeUnit.MILLISECONDS);
+				}
+				catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+			}
+		}
+	}
+
+	private void consume(Connection connection) throws JMSException {
+		try (Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
+				MessageConsumer consumer = session
+					.createConsumer(session.createQueue(Destinations.HANDLING_EVENT_REGISTRATION_ATTEMPT_BATCH_QUEUE));
+				MessageProducer rejected = session
+					.createProducer(session.createQueue(Destinations.REJECTED_REGISTRATION_ATTEMPTS_QUEUE))) {
+			while (running) {
+				final List<Message> messages = new ArrayList<>();
+				final List<HandlingEventRegistrationAttempt> attempts = receiveBatch(consumer, messages, rejected);
+				if (messages.isEmpty()) {
+					continue;
+				}
+				try {
+					process(attempts, session, rejected);
+					session.commit();
+				}
+				catch (JMSException e) {
+					throw e;
+				}
+				catch (Exception e) {
+					logger.error("Failed to process batch of {} messages, rolling back", messages.size(), e);
+					session.rollback();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Receives messages until they hold the batch size of attempts, or the maximum wait
+	 * has passed. Messages that can't be converted are forwarded to the rejected queue.
+	 * @param received receives all messages of the batch
+	 * @return the attempts of the batch
+	 */
+	private List<HandlingEventRegistrationAttempt> receiveBatch(MessageConsumer consumer, List<Message> received,
+			MessageProducer rejected) throws JMSException {
+		final List<HandlingEventRegistrationAttempt> attempts = new ArrayList<>();
+		Message message = consumer.receive(POLL_TIMEOUT_MILLIS);
+		final long deadline = System.currentTimeMillis() + maxWait.toMillis();
+		while (message != null) {
+			received.add(message);
+			final List<HandlingEventRegistrationAttempt> converted = toAttempts(message);
+			if (converted == null) {
+				rejected.send(message);
+			}
+			else {
+				attempts.addAll(converted);
+			}
+			if (attempts.size() >= batchSize) {
+				break;
+			}
+			final long remaining = deadline - System.currentTimeMillis();
+			message = remaining > 0 ? consumer.receive(remaining) : consumer.receiveNoWait();
+		}
+		return attempts;
+	}
+
+	private void process(List<HandlingEventRegistrationAttempt> attempts, Session session, MessageProducer rejected)
+			throws JMSException {
+		if (attempts.isEmpty()) {
+			return;
+		}
+		try {
+			handlingEventService.registerHandlingEvents(attempts);
+			logger.info("Registered batch of {} handling event registration attempts", attempts.size());
+		}
+		catch (RuntimeException e) {
+			logger.warn("Failed to register batch of {} attempts, registering them one at a time", attempts.size(),
+					e);
+			for (HandlingEventRegistrationAttempt attempt : attempts) {
+				if (!registerSingle(attempt)) {
+					rejected.send(messageConverter.toMessage(attempt, session));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return false if the attempt failed with an unexpected error.
+	 */
+	private boolean registerSingle(HandlingEventRegistrationAttempt attempt) {
+		try {
+			handlingEventService.registerHandlingEvent(attempt.getCompletionTime(), attempt.getTrackingId(),
+					attempt.getVoyageNumber(), attempt.getUnLocode(), attempt.getType());
+		}
+		catch (CannotCreateHandlingEventException e) {
+			logger.error("Rejected handling event registration attempt {}", attempt, e);
+		}
+		catch (RuntimeException e) {
+			logger.error("Failed to register handling event registration attempt {}", attempt, e);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the attempts of the message, or null if it has none.
+	 */
+	private List<HandlingEventRegistrationAttempt> toAttempts(Message message) {
+		try {
+			final Object payload = messageConverter.fromMessage(message);
+			if (payload instanceof HandlingEventRegistrationAttempt attempt) {
+				return List.of(attempt);
+			}
+			if (payload instanceof List<?> list
+					&& list.stream().allMatch(HandlingEventRegistrationAttempt.class::isInstance)) {
+				return list.stream().map(HandlingEventRegistrationAttempt.class::cast).toList();
+			}
+			logger.error("Unexpected message {}", message);
+		}
+		catch (Exception e) {
+			logger.error("Failed to convert message {}", message, e);
+		}
+		return null;
+	}
+
+}
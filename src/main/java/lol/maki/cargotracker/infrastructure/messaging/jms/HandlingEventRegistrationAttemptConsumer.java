@@ -5,16 +5,23 @@ import lol.maki.cargotracker.application.HandlingEventService;
 import lol.maki.cargotracker.domain.model.handling.CannotCreateHandlingEventException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jms.annotation.JmsListener;
 import org.springframework.stereotype.Component;
 
 import java.lang.invoke.MethodHandles;
+import java.util.List;
 
 /**
  * Consumes handling event registration attempt messages and delegates to proper
  * registration.
+ * <p>
+ * Batches are sent in message groups that partition them by tracking id, see
+ * {@link JmsApplicationEventsImpl}, so concurrent consumers never register the attempts
+ * of the same cargo out of order.
  */
 @Component
+@ConditionalOnProperty(name = "applicationEvents.transport", havingValue = "outbox", matchIfMissing = true)
 public class HandlingEventRegistrationAttemptConsumer {
 
 	private final HandlingEventService handlingEventService;
@@ -25,7 +32,8 @@ public class HandlingEventRegistrationAttemptConsumer {
 		this.handlingEventService = handlingEventService;
 	}
 
-	@JmsListener(destination = Destinations.HANDLING_EVENT_REGISTRATION_ATTEMPT_QUEUE)
+	@JmsListener(destination = Destinations.HANDLING_EVENT_REGISTRATION_ATTEMPT_QUEUE,
+			concurrency = "${handlingEventRegistrationAttemptConsumer.concurrency:4}")
 	public void onMessage(HandlingEventRegistrationAttempt attempt) {
 		logger.info("HandlingEventRegistrationAttemptQueue#onMessage({})", attempt);
 		try {
@@ -37,4 +45,12 @@ public class HandlingEventRegistrationAttemptConsumer {
 		}
 	}
 
+	@JmsListener(destination = Destinations.HANDLING_EVENT_REGISTRATION_ATTEMPT_BATCH_QUEUE,
+			concurrency = "${handlingEventRegistrationAttemptConsumer.concurrency:4}",
+			containerFactory = "handlingEventRegistrationAttemptBatchListenerContainerFactory")
+	public void onMessages(List<HandlingEventRegistrationAttempt> attempts) {
+		logger.info("HandlingEventRegistrationAttemptBatchQueue#onMessages({} attempts)", attempts.size());
+		handlingEventService.registerHandlingEvents(attempts);
+	}
+
 }
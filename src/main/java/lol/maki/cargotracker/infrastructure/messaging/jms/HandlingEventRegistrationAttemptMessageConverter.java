@@ -0,0 +1,138 @@
+package lol.maki.cargotracker.infrastructure.messaging.jms;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.domain.model.location.LocationRepository;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import lol.maki.cargotracker.domain.model.voyage.VoyageNumber;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts handling event registration attempts, and lists of them, to and from a
+ * compact binary {@link BytesMessage}, instead of Java serialization. Everything else is
+ * converted by the delegate.
+ * <p>
+ * The message type is {@value #ATTEMPT_TYPE} or {@value #ATTEMPTS_TYPE}, and the body
+ * is a format version byte, the number of attempts as an int, and for every attempt:
+ * <ul>
+ * <li>registration time, epoch millis as a long</li>
+ * <li>completion time, epoch millis as a long</li>
+ * <li>tracking id, as a UTF string</li>
+ * <li>voyage number, as a UTF string, empty if there is none</li>
+ * <li>handling event type, its ordinal as a byte</li>
+ * <li>UN locode, as a UTF string</li>
+ * </ul>
+ * Missing times are written as {@link Long#MIN_VALUE}. Since the handling event type is
+ * written as ordinal, the order of {@link HandlingEvent.Type} must not change. UN locodes
+ * are read through the {@link LocationRepository}, which shares those of known locations.
+ */
+public class HandlingEventRegistrationAttemptMessageConverter implements MessageConverter {
+
+	static final String ATTEMPT_TYPE = "HandlingEventRegistrationAttempt";
+
+	static final String ATTEMPTS_TYPE = "HandlingEventRegistrationAttempts";
+
+	private static final byte FORMAT_VERSION = 1;
+
+	private static final long NO_TIME = Long.MIN_VALUE;
+
+	private static final HandlingEvent.Type[] TYPES = HandlingEvent.Type.values();
+
+	private final MessageConverter delegate;
+
+	private final LocationRepository locationRepository;
+
+	public HandlingEventRegistrationAttemptMessageConverter(MessageConverter delegate,
+			LocationRepository locationRepository) {
+		this.delegate = delegate;
+		this.locationRepository = locationRepository;
+	}
+
+	@Override
+	public Message toMessage(Object object, Session session) throws JMSException, MessageConversionException {
+		if (object instanceof HandlingEventRegistrationAttempt attempt) {
+			return write(List.of(attempt), ATTEMPT_TYPE, session);
+		}
+		if (object instanceof List<?> list
+				&& list.stream().allMatch(HandlingEventRegistrationAttempt.class::isInstance)) {
+			return write(list, ATTEMPTS_TYPE, session);
+		}
+		return delegate.toMessage(object, session);
+	}
+
+	@Override
+	public Object fromMessage(Message message) throws JMSException, MessageConversionException {
+		if (message instanceof BytesMessage bytesMessage) {
+			if (ATTEMPT_TYPE.equals(message.getJMSType())) {
+				return read(bytesMessage).get(0);
+			}
+			if (ATTEMPTS_TYPE.equals(message.getJMSType())) {
+				return read(bytesMessage);
+			}
+		}
+		return delegate.fromMessage(message);
+	}
+
+	private static BytesMessage write(List<?> attempts, String type, Session session) throws JMSException {
+		final BytesMessage message = session.createBytesMessage();
+		message.setJMSType(type);
+		message.writeByte(FORMAT_VERSION);
+		message.writeInt(attempts.size());
+		for (Object element : attempts) {
+			final HandlingEventRegistrationAttempt attempt = (HandlingEventRegistrationAttempt) element;
+			message.writeLong(toEpochMilli(attempt.getRegistrationTime()));
+			message.writeLong(toEpochMilli(attempt.getCompletionTime()));
+			message.writeUTF(attempt.getTrackingId().idString());
+			message.writeUTF(attempt.getVoyageNumber() == null ? "" : attempt.getVoyageNumber().idString());
+			message.writeByte((byte) attempt.getType().ordinal());
+			message.writeUTF(attempt.getUnLocode().idString());
+		}
+		return message;
+	}
+
+	private List<HandlingEventRegistrationAttempt> read(BytesMessage message) throws JMSException {
+		final byte version = message.readByte();
+		if (version != FORMAT_VERSION) {
+			throw new MessageConversionException("Unsupported format version " + version + " of " + message);
+		}
+		final int count = message.readInt();
+		final List<HandlingEventRegistrationAttempt> attempts = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			final Instant registrationTime = toInstant(message.readLong());
+			final Instant completionTime = toInstant(message.readLong());
+			final TrackingId trackingId = new TrackingId(message.readUTF());
+			final String voyageNumber = message.readUTF();
+			final HandlingEvent.Type type = toType(message.readByte(), message);
+			final UnLocode unLocode = locationRepository.unLocode(message.readUTF());
+			attempts.add(new HandlingEventRegistrationAttempt(registrationTime, completionTime, trackingId,
+					voyageNumber.isEmpty() ? null : new VoyageNumber(voyageNumber), type, unLocode));
+		}
+		return attempts;
+	}
+
+	private static HandlingEvent.Type toType(byte ordinal, Message message) {
+		if (ordinal < 0 || ordinal >= TYPES.length) {
+			throw new MessageConversionException("Unknown handling event type " + ordinal + " of " + message);
+		}
+		return TYPES[ordinal];
+	}
+
+	private static long toEpochMilli(Instant instant) {
+		return instant == null ? NO_TIME : instant.toEpochMilli();
+	}
+
+	private static Instant toInstant(long epochMilli) {
+		return epochMilli == NO_TIME ? null : Instant.ofEpochMilli(epochMilli);
+	}
+
+}
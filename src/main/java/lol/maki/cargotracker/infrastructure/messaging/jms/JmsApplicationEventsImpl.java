@@ -3,20 +3,45 @@ package lol.maki.cargotracker.infrastructure.messaging.jms;
 import lol.maki.cargotracker.application.ApplicationEvents;
 import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
 import lol.maki.cargotracker.domain.model.cargo.Cargo;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
 import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import jakarta.jms.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jms.core.JmsOperations;
 import org.springframework.stereotype.Component;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * JMS based implementation.
+ * <p>
+ * Messages about a single cargo carry its tracking id as ActiveMQ message group
+ * ({@value #GROUP_ID}). The broker delivers all messages of a group to the same consumer,
+ * so they are processed in order while messages about different cargo are processed by
+ * concurrent consumers. Cargo handled messages are handed over to the
+ * {@link CargoInspectionCoalescer}, which keeps that order by inspecting each cargo on
+ * a single lane.
+ * <p>
+ * Batches of handling event registration attempts are split into a fixed number of
+ * partitions by tracking id, and each partition is sent as its own message group, so the
+ * attempts of a cargo are registered in order as well.
  */
 @Component
 public final class JmsApplicationEventsImpl implements ApplicationEvents {
 
+	static final String GROUP_ID = "JMSXGroupID";
+
+	/**
+	 * Number of message groups that batches of handling event registration attempts are
+	 * partitioned into.
+	 */
+	static final int PARTITIONS = 16;
+
 	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
 	private final JmsOperations jmsOperations;
@@ -29,7 +54,30 @@ public final class JmsApplicationEventsImpl implements ApplicationEvents {
 	public void cargoWasHandled(HandlingEvent event) {
 		final Cargo cargo = event.cargo();
 		logger.info("Cargo was handled {}", cargo);
-		jmsOperations.convertAndSend(Destinations.CARGO_HANDLED_QUEUE, cargo.trackingId().idString());
+		jmsOperations.convertAndSend(Destinations.CARGO_HANDLED_QUEUE, cargo.trackingId().idString(), message -> {
+			message.setStringProperty(GROUP_ID, cargo.trackingId().idString());
+			message.setLongProperty(CargoHandledConsumer.HANDLING_EVENT_ID, event.id);
+			return message;
+		});
+	}
+
+	@Override
+	public void cargosWereHandled(List<HandlingEvent> events) {
+		final Map<String, HandlingEvent> mostRecentEvents = mostRecentEventPerCargo(events);
+		if (mostRecentEvents.isEmpty()) {
+			return;
+		}
+		logger.info("Cargos were handled {}", mostRecentEvents.keySet());
+		// One session and producer for the whole batch, and one message per cargo
+		jmsOperations.execute(Destinations.CARGO_HANDLED_QUEUE, (session, producer) -> {
+			for (Map.Entry<String, HandlingEvent> entry : mostRecentEvents.entrySet()) {
+				final Message message = session.createTextMessage(entry.getKey());
+				message.setStringProperty(GROUP_ID, entry.getKey());
+				message.setLongProperty(CargoHandledConsumer.HANDLING_EVENT_ID, entry.getValue().id);
+				producer.send(message);
+			}
+			return null;
+		});
 	}
 
 	@Override
@@ -47,7 +95,45 @@ public final class JmsApplicationEventsImpl implements ApplicationEvents {
 	@Override
 	public void receivedHandlingEventRegistrationAttempt(HandlingEventRegistrationAttempt attempt) {
 		logger.info("Received handling event registration attempt {}", attempt);
-		jmsOperations.convertAndSend(Destinations.HANDLING_EVENT_REGISTRATION_ATTEMPT_QUEUE, attempt);
+		jmsOperations.convertAndSend(Destinations.HANDLING_EVENT_REGISTRATION_ATTEMPT_QUEUE, attempt, message -> {
+			message.setStringProperty(GROUP_ID, attempt.getTrackingId().idString());
+			return message;
+		});
+	}
+
+	@Override
+	public void receivedHandlingEventRegistrationAttempts(List<HandlingEventRegistrationAttempt> attempts) {
+		logger.info("Received {} handling event registration attempts", attempts.size());
+		final Map<Integer, ArrayList<HandlingEventRegistrationAttempt>> partitions = new LinkedHashMap<>();
+		for (HandlingEventRegistrationAttempt attempt : attempts) {
+			partitions.computeIfAbsent(partition(attempt.getTrackingId()), partition -> new ArrayList<>())
+				.add(attempt);
+		}
+		partitions.forEach((partition, batch) -> jmsOperations
+			.convertAndSend(Destinations.HANDLING_EVENT_REGISTRATION_ATTEMPT_BATCH_QUEUE, batch, message -> {
+				message.setStringProperty(GROUP_ID, "partition-" + partition);
+				return message;
+			}));
+	}
+
+	static int partition(TrackingId trackingId) {
+		return Math.floorMod(trackingId.idString().hashCode(), PARTITIONS);
+	}
+
+	/**
+	 * Only the most recently completed event of each cargo matters for its delivery.
+	 * @param events handling events
+	 * @return the most recently completed event per tracking id, in the order the cargos
+	 * first appear in the events
+	 */
+	static Map<String, HandlingEvent> mostRecentEventPerCargo(List<HandlingEvent> events) {
+		final Map<String, HandlingEvent> mostRecentEvents = new LinkedHashMap<>();
+		for (HandlingEvent event : events) {
+			mostRecentEvents.merge(event.cargo().trackingId().idString(), event,
+					(current, candidate) -> candidate.completionTime().isAfter(current.completionTime()) ? candidate
+							: current);
+		}
+		return mostRecentEvents;
 	}
 
 }
@@ -1,10 +1,18 @@
 package lol.maki.cargotracker.infrastructure.messaging.jms;
 
+import jakarta.jms.ConnectionFactory;
 import jakarta.jms.Queue;
+import lol.maki.cargotracker.domain.model.location.LocationRepository;
+import org.apache.activemq.ActiveMQSession;
 import org.apache.activemq.command.ActiveMQQueue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jms.DefaultJmsListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jms.annotation.EnableJms;
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
 
 @EnableJms
 @Configuration
@@ -30,6 +38,62 @@ public class JmsConfig {
 		return new ActiveMQQueue(Destinations.HANDLING_EVENT_REGISTRATION_ATTEMPT_QUEUE);
 	}
 
+	@Bean
+	public Queue handlingEventRegistrationAttemptBatchQueue() {
+		return new ActiveMQQueue(Destinations.HANDLING_EVENT_REGISTRATION_ATTEMPT_BATCH_QUEUE);
+	}
+
+	/**
+	 * Used by the JMS template and all listeners.
+	 */
+	@Bean
+	public MessageConverter messageConverter(LocationRepository locationRepository) {
+		return new HandlingEventRegistrationAttemptMessageConverter(new SimpleMessageConverter(), locationRepository);
+	}
+
+	/**
+	 * Listener containers for batches of handling event registration attempts. They are
+	 * not started when the batches are consumed by the
+	 * {@link HandlingEventRegistrationAttemptBatchConsumer} instead.
+	 */
+	@Bean
+	public DefaultJmsListenerContainerFactory handlingEventRegistrationAttemptBatchListenerContainerFactory(
+			DefaultJmsListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+			@Value("${handlingEventRegistrationAttemptConsumer.batch.enabled:false}") boolean batchEnabled) {
+		final DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+		configurer.configure(factory, connectionFactory);
+		factory.setAutoStartup(!batchEnabled);
+		return factory;
+	}
+
+	/**
+	 * Listener containers for cargo handled messages. The messages are acknowledged one
+	 * by one once the cargo has been inspected, see {@link CargoHandledConsumer}, so
+	 * the containers must not acknowledge them when the listener returns.
+	 */
+	@Bean
+	public DefaultJmsListenerContainerFactory cargoHandledListenerContainerFactory(
+			DefaultJmsListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+		final DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+		configurer.configure(factory, connectionFactory);
+		factory.setSessionTransacted(false);
+		factory.setSessionAcknowledgeMode(ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE);
+		return factory;
+	}
+
+	/**
+	 * Listener containers for the cargo delivery updated topic, see
+	 * {@link CargoDeliveryBroadcaster}.
+	 */
+	@Bean
+	public DefaultJmsListenerContainerFactory cargoDeliveryUpdatedListenerContainerFactory(
+			DefaultJmsListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+		final DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+		configurer.configure(factory, connectionFactory);
+		factory.setPubSubDomain(true);
+		return factory;
+	}
+
 	@Bean
 	public Queue rejectedRegistrationAttemptsQueue() throws Exception {
 		return new ActiveMQQueue(Destinations.REJECTED_REGISTRATION_ATTEMPTS_QUEUE);
@@ -0,0 +1,100 @@
+package lol.maki.cargotracker.infrastructure.messaging.jms;
+
+import lol.maki.cargotracker.application.ApplicationEvents;
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.domain.model.cargo.Cargo;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional outbox implementation.
+ * <p>
+ * Events about cargo are written as {@link OutboxMessage}s in the transaction that
+ * changed the cargo or its handling, instead of being sent to the broker while that
+ * transaction holds its locks. They are sent by the {@link OutboxRelay} once the
+ * transaction has committed, and are never lost if the transaction commits, even when
+ * the broker is slow or unavailable.
+ * <p>
+ * Handling event registration attempts are not part of any transaction, and are sent
+ * directly by the {@link JmsApplicationEventsImpl}.
+ */
+@Primary
+@Component
+@ConditionalOnProperty(name = "applicationEvents.transport", havingValue = "outbox", matchIfMissing = true)
+public class OutboxApplicationEvents implements ApplicationEvents {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private final OutboxMessageRepository outboxMessageRepository;
+
+	private final JmsApplicationEventsImpl jmsApplicationEvents;
+
+	public OutboxApplicationEvents(OutboxMessageRepository outboxMessageRepository,
+			JmsApplicationEventsImpl jmsApplicationEvents) {
+		this.outboxMessageRepository = outboxMessageRepository;
+		this.jmsApplicationEvents = jmsApplicationEvents;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void cargoWasHandled(HandlingEvent event) {
+		final Cargo cargo = event.cargo();
+		logger.info("Cargo was handled {}", cargo);
+		outboxMessageRepository.save(cargoHandled(cargo.trackingId().idString(), event));
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void cargosWereHandled(List<HandlingEvent> events) {
+		final Map<String, HandlingEvent> mostRecentEvents = JmsApplicationEventsImpl.mostRecentEventPerCargo(events);
+		if (mostRecentEvents.isEmpty()) {
+			return;
+		}
+		logger.info("Cargos were handled {}", mostRecentEvents.keySet());
+		final List<OutboxMessage> messages = new ArrayList<>(mostRecentEvents.size());
+		mostRecentEvents.forEach((trackingId, event) -> messages.add(cargoHandled(trackingId, event)));
+		outboxMessageRepository.saveAll(messages);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void cargoWasMisdirected(Cargo cargo) {
+		logger.info("Cargo was misdirected {}", cargo);
+		outboxMessageRepository
+			.save(new OutboxMessage(Destinations.MISDIRECTED_CARGO_QUEUE, cargo.trackingId().idString(), null, null));
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void cargoHasArrived(Cargo cargo) {
+		logger.info("Cargo has arrived {}", cargo);
+		outboxMessageRepository
+			.save(new OutboxMessage(Destinations.DELIVERED_CARGO_QUEUE, cargo.trackingId().idString(), null, null));
+	}
+
+	@Override
+	public void receivedHandlingEventRegistrationAttempt(HandlingEventRegistrationAttempt attempt) {
+		jmsApplicationEvents.receivedHandlingEventRegistrationAttempt(attempt);
+	}
+
+	@Override
+	public void receivedHandlingEventRegistrationAttempts(List<HandlingEventRegistrationAttempt> attempts) {
+		jmsApplicationEvents.receivedHandlingEventRegistrationAttempts(attempts);
+	}
+
+	private static OutboxMessage cargoHandled(String trackingId, HandlingEvent event) {
+		return new OutboxMessage(Destinations.CARGO_HANDLED_QUEUE, trackingId, trackingId, event.id);
+	}
+
+}
@@ -0,0 +1,87 @@
+package lol.maki.cargotracker.infrastructure.messaging.jms;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * A text message that is written in the same transaction as the state change it is
+ * about, and sent to its destination by the {@link OutboxRelay} after that transaction
+ * has committed.
+ */
+@Entity(name = "OutboxMessage")
+@Table(name = "OutboxMessage")
+public class OutboxMessage {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.AUTO)
+	private Long id;
+
+	@Column(nullable = false)
+	private String destination;
+
+	@Column(nullable = false)
+	private String body;
+
+	@Column
+	private String groupId;
+
+	@Column
+	private Long handlingEventId;
+
+	@Column(nullable = false)
+	private Instant createdAt;
+
+	OutboxMessage(String destination, String body, String groupId, Long handlingEventId) {
+		this.destination = destination;
+		this.body = body;
+		this.groupId = groupId;
+		this.handlingEventId = handlingEventId;
+		this.createdAt = Instant.now();
+	}
+
+	protected OutboxMessage() {
+		// Needed by Hibernate
+	}
+
+	public Long id() {
+		return id;
+	}
+
+	public String destination() {
+		return destination;
+	}
+
+	public String body() {
+		return body;
+	}
+
+	/**
+	 * @return message group of the message, or null
+	 */
+	public String groupId() {
+		return groupId;
+	}
+
+	/**
+	 * @return id of the handling event the message is about, or null
+	 */
+	public Long handlingEventId() {
+		return handlingEventId;
+	}
+
+	public Instant createdAt() {
+		return createdAt;
+	}
+
+	@Override
+	public String toString() {
+		return "OutboxMessage{id=" + id + ", destination=" + destination + ", body=" + body + "}";
+	}
+
+}
@@ -0,0 +1,46 @@
+package lol.maki.cargotracker.infrastructure.messaging.jms;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.ListCrudRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Hibernate repository of outbox messages.
+ */
+public interface OutboxMessageRepository extends ListCrudRepository<OutboxMessage, Long> {
+
+	/**
+	 * Lock timeout of Hibernate that skips locked rows, see
+	 * {@link org.hibernate.LockOptions#SKIP_LOCKED}.
+	 */
+	String SKIP_LOCKED = "-2";
+
+	/**
+	 * Locks the oldest messages for the current transaction, skipping those already locked
+	 * by the relay of another node.
+	 * @param pageable maximum number of messages
+	 * @return the oldest unlocked messages, in the order they were written
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = SKIP_LOCKED))
+	@Query("select m from OutboxMessage m order by m.id")
+	List<OutboxMessage> findOldest(Pageable pageable);
+
+	/**
+	 * Deletes messages that have been sent, with a single statement.
+	 * @param ids message ids
+	 */
+	@Modifying
+	@Query("delete from OutboxMessage m where m.id in :ids")
+	void deleteSent(Collection<Long> ids);
+
+}
@@ -0,0 +1,114 @@
+package lol.maki.cargotracker.infrastructure.messaging.jms;
+
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jms.core.JmsOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends the messages written by the {@link OutboxApplicationEvents} to the broker.
+ * <p>
+ * The oldest messages are read in batches, sent in the order they were written with one
+ * JMS session per batch, and deleted in the same database transaction. If sending fails,
+ * the transaction is rolled back and the batch is sent again on the next run, so messages
+ * are delivered at least once. A message can be sent twice if the deletion fails after
+ * it has been sent, which the consumers tolerate since inspecting a cargo is idempotent.
+ * <p>
+ * Every node runs a relay. The batch is read with {@code SELECT ... FOR UPDATE SKIP
+ * LOCKED}, so each message is only locked, sent and deleted by one relay at a time, and
+ * the relays of other nodes move on to the following messages. Messages of the same
+ * cargo in different batches can then be sent out of order by two relays, which the
+ * cargo inspection tolerates since it starts from the most recently completed handling
+ * event.
+ */
+@Component
+@ConditionalOnProperty(name = "applicationEvents.transport", havingValue = "outbox", matchIfMissing = true)
+public class OutboxRelay {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private final OutboxMessageRepository outboxMessageRepository;
+
+	private final JmsOperations jmsOperations;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int batchSize;
+
+	public OutboxRelay(OutboxMessageRepository outboxMessageRepository, JmsOperations jmsOperations,
+			PlatformTransactionManager transactionManager,
+			@Value("${applicationEvents.outbox.batchSize:500}") int batchSize) {
+		this.outboxMessageRepository = outboxMessageRepository;
+		this.jmsOperations = jmsOperations;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Sends batches of messages until the outbox is drained or sending fails.
+	 */
+	@Scheduled(fixedDelayString = "${applicationEvents.outbox.relayDelay:100}")
+	public void relay() {
+		try {
+			int sent;
+			do {
+				sent = transactionTemplate.execute(status -> relayBatch());
+			}
+			while (sent == batchSize);
+		}
+		catch (RuntimeException e) {
+			logger.warn("Failed to relay outbox messages, retrying on the next run", e);
+		}
+	}
+
+	private int relayBatch() {
+		final List<OutboxMessage> messages = outboxMessageRepository.findOldest(PageRequest.ofSize(batchSize));
+		if (messages.isEmpty()) {
+			return 0;
+		}
+		jmsOperations.execute(session -> {
+			final Map<String, MessageProducer> producers = new HashMap<>();
+			try {
+				for (OutboxMessage outboxMessage : messages) {
+					final Message message = session.createTextMessage(outboxMessage.body());
+					if (outboxMessage.groupId() != null) {
+						message.setStringProperty(JmsApplicationEventsImpl.GROUP_ID, outboxMessage.groupId());
+					}
+					if (outboxMessage.handlingEventId() != null) {
+						message.setLongProperty(CargoHandledConsumer.HANDLING_EVENT_ID,
+								outboxMessage.handlingEventId());
+					}
+					MessageProducer producer = producers.get(outboxMessage.destination());
+					if (producer == null) {
+						producer = session.createProducer(session.createQueue(outboxMessage.destination()));
+						producers.put(outboxMessage.destination(), producer);
+					}
+					producer.send(message);
+				}
+			}
+			finally {
+				for (MessageProducer producer : producers.values()) {
+					producer.close();
+				}
+			}
+			return null;
+		});
+		outboxMessageRepository.deleteSent(messages.stream().map(OutboxMessage::id).toList());
+		logger.debug("Relayed {} outbox messages", messages.size());
+		return messages.size();
+	}
+
+}
@@ -0,0 +1,239 @@
+package lol.maki.cargotracker.infrastructure.persistence.directory;
+
+import lol.maki.cargotracker.domain.model.location.Location;
+import lol.maki.cargotracker.domain.model.location.LocationRepository;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable in-memory directory of all locations, in front of a persistent
+ * LocationRepository.
+ * <p/>
+ * Locations are loaded once at startup into an open-addressed hash table keyed by the
+ * five characters of the UN Locode packed into a {@code long}, so a lookup neither
+ * allocates nor touches the database. The table is never modified: storing a location
+ * builds a new table and swaps it in atomically. Lookups that miss fall through to the
+ * persistent repository.
+ * <p/>
+ * Locations that are stored or found in the persistent repository within a transaction
+ * are only added once the transaction has committed, so that a rollback doesn't leave
+ * them in the directory. UN Locodes of known locations are parsed by looking them up, so
+ * the validation of the code is skipped.
+ */
+public class LocationDirectory implements LocationRepository, SmartInitializingSingleton {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private final LocationRepository delegate;
+
+	private volatile Table table = Table.EMPTY;
+
+	public LocationDirectory(final LocationRepository delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		reload();
+	}
+
+	/**
+	 * Replaces the directory with all locations currently in the persistent repository.
+	 */
+	public synchronized void reload() {
+		table = Table.of(delegate.getAll());
+		logger.info("Loaded {} locations into the location directory", table.size());
+	}
+
+	@Override
+	public Location find(final UnLocode unLocode) {
+		final Location location = table.get(unLocode.idString());
+		if (location != null) {
+			return location;
+		}
+		final Location stored = delegate.find(unLocode);
+		if (stored != null) {
+			addAfterCommit(List.of(stored));
+		}
+		return stored;
+	}
+
+	@Override
+	public List<Location> findAll(final Collection<UnLocode> unLocodes) {
+		final Table current = table;
+		final List<Location> locations = new ArrayList<>(unLocodes.size());
+		final List<UnLocode> misses = new ArrayList<>();
+		for (UnLocode unLocode : unLocodes) {
+			final Location location = current.get(unLocode.idString());
+			if (location != null) {
+				locations.add(location);
+			}
+			else {
+				misses.add(unLocode);
+			}
+		}
+		if (!misses.isEmpty()) {
+			final List<Location> stored = delegate.findAll(misses);
+			addAfterCommit(stored);
+			locations.addAll(stored);
+		}
+		return locations;
+	}
+
+	@Override
+	public List<Location> getAll() {
+		return table.locations();
+	}
+
+	@Override
+	public Location store(final Location location) {
+		final Location stored = delegate.store(location);
+		addAfterCommit(List.of(stored));
+		return stored;
+	}
+
+	@Override
+	public UnLocode unLocode(final String unlocode) {
+		final Location location = unlocode == null ? null : table.get(unlocode);
+		return location != null ? location.unLocode() : new UnLocode(unlocode);
+	}
+
+	private void addAfterCommit(final List<Location> locations) {
+		if (locations.isEmpty()) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					add(locations);
+				}
+			});
+		}
+		else {
+			add(locations);
+		}
+	}
+
+	private synchronized void add(final List<Location> locations) {
+		Table updated = table;
+		for (Location location : locations) {
+			updated = updated.with(location);
+		}
+		table = updated;
+	}
+
+	/**
+	 * Open-addressed hash table with linear probing. Keys are UN Locodes packed into a
+	 * long, one byte per character, so 0 can mark an empty slot.
+	 */
+	static final class Table {
+
+		static final Table EMPTY = new Table(List.of());
+
+		private final long[] keys;
+
+		private final Location[] values;
+
+		private final int mask;
+
+		private final List<Location> locations;
+
+		private Table(final List<Location> locations) {
+			final int capacity = Integer.highestOneBit(Math.max(locations.size(), 1) * 4 - 1) << 1;
+			this.keys = new long[capacity];
+			this.values = new Location[capacity];
+			this.mask = capacity - 1;
+			this.locations = locations;
+			for (Location location : locations) {
+				put(location);
+			}
+		}
+
+		static Table of(final Collection<Location> locations) {
+			return new Table(List.copyOf(locations));
+		}
+
+		Table with(final Location location) {
+			final List<Location> updated = new ArrayList<>(locations.size() + 1);
+			for (Location existing : locations) {
+				if (!existing.sameIdentityAs(location)) {
+					updated.add(existing);
+				}
+			}
+			updated.add(location);
+			return new Table(List.copyOf(updated));
+		}
+
+		Location get(final String unlocode) {
+			final long key = pack(unlocode);
+			if (key == 0) {
+				return null;
+			}
+			for (int slot = slot(key);; slot = (slot + 1) & mask) {
+				final long candidate = keys[slot];
+				if (candidate == key) {
+					return values[slot];
+				}
+				if (candidate == 0) {
+					return null;
+				}
+			}
+		}
+
+		int size() {
+			return locations.size();
+		}
+
+		List<Location> locations() {
+			return locations;
+		}
+
+		private void put(final Location location) {
+			final long key = pack(location.unlocode);
+			int slot = slot(key);
+			while (keys[slot] != 0 && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			values[slot] = location;
+		}
+
+		private int slot(final long key) {
+			return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		}
+
+		/**
+		 * @return the upper case UN Locode packed into a long, or 0 if it is not five
+		 * ASCII characters long.
+		 */
+		static long pack(final String unlocode) {
+			if (unlocode.length() != 5) {
+				return 0;
+			}
+			long key = 0;
+			for (int i = 0; i < 5; i++) {
+				char c = unlocode.charAt(i);
+				if (c >= 'a' && c <= 'z') {
+					c -= 'a' - 'A';
+				}
+				if (c == 0 || c > 0x7F) {
+					return 0;
+				}
+				key = key << 8 | c;
+			}
+			return key;
+		}
+
+	}
+
+}
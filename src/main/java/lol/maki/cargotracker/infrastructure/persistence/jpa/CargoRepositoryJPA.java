@@ -1,11 +1,20 @@
 package lol.maki.cargotracker.infrastructure.persistence.jpa;
 
 import lol.maki.cargotracker.domain.model.cargo.CargoRepository;
+import lol.maki.cargotracker.domain.model.cargo.CargoSummary;
+import lol.maki.cargotracker.domain.model.cargo.CargoSummaryFilter;
+import lol.maki.cargotracker.domain.model.cargo.DeliveryVersion;
+import lol.maki.cargotracker.domain.model.cargo.RoutingStatus;
 import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
 import lol.maki.cargotracker.domain.model.cargo.Cargo;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -13,6 +22,27 @@ import java.util.List;
  */
 public interface CargoRepositoryJPA extends ListCrudRepository<Cargo, Long>, CargoRepository {
 
+	/**
+	 * Fetch joins of the associations needed to display a cargo, with {@code l} as the
+	 * alias of its legs.
+	 */
+	String WITH_ITINERARY = """
+			left join fetch c.origin
+			left join fetch c.routeSpecification.origin
+			left join fetch c.routeSpecification.destination
+			left join fetch c.itinerary l
+			left join fetch l.voyage
+			left join fetch l.loadLocation
+			left join fetch l.unloadLocation
+			left join fetch c.delivery.currentVoyage
+			left join fetch c.delivery.lastKnownLocation
+			left join fetch c.delivery.nextExpectedActivity.location
+			left join fetch c.delivery.nextExpectedActivity.voyage
+			left join fetch c.delivery.lastEvent e
+			left join fetch e.location
+			left join fetch e.voyage
+			""";
+
 	@Override
 	default Cargo find(TrackingId trackingId) {
 		return findByTrackingId(trackingId.idString());
@@ -21,6 +51,75 @@ public interface CargoRepositoryJPA extends ListCrudRepository<Cargo, Long>, Car
 	@Query("select c from Cargo c where c.trackingId = :trackingId")
 	Cargo findByTrackingId(String trackingId);
 
+	@Override
+	default Cargo findWithItinerary(TrackingId trackingId) {
+		return findWithItineraryByTrackingId(trackingId.idString());
+	}
+
+	/**
+	 * Loads the cargo, its legs and every location, voyage and handling event it refers
+	 * to in one statement. Only the legs are a collection, so the result has one row per
+	 * leg. The legs are ordered by id, which is the order they were stored in.
+	 */
+	@Query("""
+			select c from Cargo c
+			""" + WITH_ITINERARY + """
+			where c.trackingId = :trackingId
+			order by l.id
+			""")
+	Cargo findWithItineraryByTrackingId(String trackingId);
+
+	@Override
+	default List<Cargo> findAll(Collection<TrackingId> trackingIds) {
+		return findByTrackingIds(trackingIds.stream().map(TrackingId::idString).toList());
+	}
+
+	@Query("select c from Cargo c where c.trackingId in :trackingIds")
+	List<Cargo> findByTrackingIds(Collection<String> trackingIds);
+
+	@Override
+	default DeliveryVersion findDeliveryVersion(TrackingId trackingId) {
+		return findDeliveryVersionByTrackingId(trackingId.idString());
+	}
+
+	@Query("""
+			select new lol.maki.cargotracker.domain.model.cargo.DeliveryVersion(
+				c.delivery.calculatedAt, c.delivery.lastEvent.id)
+			from Cargo c
+			where c.trackingId = :trackingId
+			""")
+	DeliveryVersion findDeliveryVersionByTrackingId(String trackingId);
+
+	@Override
+	default List<CargoSummary> findSummaries(CargoSummaryFilter filter, TrackingId afterTrackingId, int limit) {
+		return querySummaries(filter.routingStatus(), idString(filter.origin()), idString(filter.destination()),
+				filter.arrivalDeadlineFrom(), filter.arrivalDeadlineBefore(),
+				afterTrackingId == null ? null : afterTrackingId.idString(), PageRequest.ofSize(limit));
+	}
+
+	private static String idString(UnLocode unLocode) {
+		return unLocode == null ? null : unLocode.idString();
+	}
+
+	/**
+	 * Reads the columns of the summaries only. The tracking id index serves both the
+	 * order and the start of the page.
+	 */
+	@Query("""
+			select new lol.maki.cargotracker.domain.model.cargo.CargoSummary(
+				c.trackingId, o.unlocode, d.unlocode, c.routeSpecification.arrivalDeadline, c.delivery.routingStatus)
+			from Cargo c join c.origin o join c.routeSpecification.destination d
+			where (:afterTrackingId is null or c.trackingId > :afterTrackingId)
+			and (:routingStatus is null or c.delivery.routingStatus = :routingStatus)
+			and (:origin is null or o.unlocode = :origin)
+			and (:destination is null or d.unlocode = :destination)
+			and (:arrivalDeadlineFrom is null or c.routeSpecification.arrivalDeadline >= :arrivalDeadlineFrom)
+			and (:arrivalDeadlineBefore is null or c.routeSpecification.arrivalDeadline < :arrivalDeadlineBefore)
+			order by c.trackingId
+			""")
+	List<CargoSummary> querySummaries(RoutingStatus routingStatus, String origin, String destination,
+			Instant arrivalDeadlineFrom, Instant arrivalDeadlineBefore, String afterTrackingId, Pageable pageable);
+
 	@Override
 	default void store(final Cargo cargo) {
 		save(cargo);
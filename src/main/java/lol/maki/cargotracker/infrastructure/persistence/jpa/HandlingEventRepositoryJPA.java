@@ -19,6 +19,16 @@ public interface HandlingEventRepositoryJPA extends ListCrudRepository<HandlingE
 		save(event);
 	}
 
+	@Override
+	default void storeAll(final List<HandlingEvent> events) {
+		saveAll(events);
+	}
+
+	@Override
+	default HandlingEvent find(final long id) {
+		return findById(id).orElse(null);
+	}
+
 	@Override
 	default HandlingHistory lookupHandlingHistoryOfCargo(final TrackingId trackingId) {
 		return new HandlingHistory(getHandlingHistoryOfCargo(trackingId.idString()));
@@ -27,4 +37,26 @@ public interface HandlingEventRepositoryJPA extends ListCrudRepository<HandlingE
 	@Query("select he from HandlingEvent he where he.cargo.trackingId = :trackingId and he.location != NULL")
 	List<HandlingEvent> getHandlingHistoryOfCargo(String trackingId);
 
+	@Override
+	default List<HandlingEvent> lookupDistinctHandlingEventsOfCargo(final TrackingId trackingId) {
+		return getDistinctHandlingEventsOfCargo(trackingId.idString());
+	}
+
+	/**
+	 * Orders and deduplicates the events in the database. Of the registrations of the same
+	 * event, the first one is kept. Served by the (cargo_id, completion_time, ...) index
+	 * of HandlingEvent. The location and voyage of the events are fetched along with
+	 * them.
+	 */
+	@Query("""
+			select he from HandlingEvent he join fetch he.location left join fetch he.voyage
+			where he.cargo.trackingId = :trackingId and he.location is not null
+			and not exists (select d.id from HandlingEvent d
+				where d.cargo = he.cargo and d.completionTime = he.completionTime and d.location = he.location
+				and d.type = he.type and (d.voyage = he.voyage or (d.voyage is null and he.voyage is null))
+				and d.id < he.id)
+			order by he.completionTime, he.id
+			""")
+	List<HandlingEvent> getDistinctHandlingEventsOfCargo(String trackingId);
+
 }
@@ -6,6 +6,7 @@ import lol.maki.cargotracker.domain.model.location.Location;
 import lol.maki.cargotracker.domain.model.location.LocationRepository;
 import lol.maki.cargotracker.domain.model.location.UnLocode;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface LocationRepositoryJPA extends ListCrudRepository<Location, Long>, LocationRepository {
@@ -18,6 +19,14 @@ public interface LocationRepositoryJPA extends ListCrudRepository<Location, Long
 	@Query("select loc from Location loc where loc.unlocode = :unlocode")
 	Location findByUnLoCode(String unlocode);
 
+	@Override
+	default List<Location> findAll(final Collection<UnLocode> unLocodes) {
+		return findByUnLoCodes(unLocodes.stream().map(UnLocode::idString).toList());
+	}
+
+	@Query("select loc from Location loc where loc.unlocode in :unlocodes")
+	List<Location> findByUnLoCodes(Collection<String> unlocodes);
+
 	@Override
 	default List<Location> getAll() {
 		return findAll();
@@ -1,25 +1,53 @@
 package lol.maki.cargotracker.infrastructure.persistence.jpa;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
 import lol.maki.cargotracker.domain.model.voyage.Voyage;
 import lol.maki.cargotracker.domain.model.voyage.VoyageNumber;
 import lol.maki.cargotracker.domain.model.voyage.VoyageRepository;
+import lol.maki.cargotracker.domain.model.voyage.VoyageStored;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
- * Hibernate implementation of CarrierMovementRepository.
+ * Hibernate implementation of CarrierMovementRepository. Lookups by voyage number are
+ * cached in the {@value #CACHE_NAME} cache, so the carrier movements are fetched along
+ * with the voyage.
  */
 public interface VoyageRepositoryJPA extends ListCrudRepository<Voyage, Long>, VoyageRepository {
 
+	String CACHE_NAME = "voyages";
+
 	@Override
+	@Cacheable(cacheNames = CACHE_NAME, unless = "#result == null")
 	default Voyage find(final VoyageNumber voyageNumber) {
 		return findByVoyageNumber(voyageNumber.idString());
 	}
 
-	@Query("select v from Voyage v where v.voyageNumber = :voyageNumber")
+	@Query("select distinct v from Voyage v left join fetch v.carrierMovements where v.voyageNumber = :voyageNumber")
 	Voyage findByVoyageNumber(String voyageNumber);
 
 	@Override
+	default List<Voyage> findAll(final Collection<VoyageNumber> voyageNumbers) {
+		return findByVoyageNumbers(voyageNumbers.stream().map(VoyageNumber::idString).toList());
+	}
+
+	@Query("select v from Voyage v where v.voyageNumber in :voyageNumbers")
+	List<Voyage> findByVoyageNumbers(Collection<String> voyageNumbers);
+
+	@Override
+	@Query("select distinct v from Voyage v left join fetch v.carrierMovements")
+	List<Voyage> getAll();
+
+	/**
+	 * Saving the voyage publishes a {@link VoyageStored} event, on which the caches
+	 * derived from the schedules clear themselves.
+	 */
+	@Override
+	@CacheEvict(cacheNames = CACHE_NAME, key = "#voyage.voyageNumber()")
 	default void store(Voyage voyage) {
 		save(voyage);
 	}
@@ -0,0 +1,86 @@
+package lol.maki.cargotracker.infrastructure.routing;
+
+import lol.maki.cargotracker.domain.model.cargo.Itinerary;
+import lol.maki.cargotracker.domain.model.cargo.RouteSpecification;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import lol.maki.cargotracker.domain.model.voyage.VoyageStored;
+import lol.maki.cargotracker.domain.service.RoutingService;
+import org.apache.commons.lang3.Validate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Caches the route candidates found by the routing service, so that they are returned
+ * without traversing the graph or looking up the voyage and locations of every leg.
+ * <p/>
+ * Candidates are found and cached per origin, destination and day of the arrival
+ * deadline, for a deadline at the end of that day. The candidates for a route
+ * specification are the cached ones that satisfy it, which only compares the end points
+ * and the final arrival time of each candidate, and that haven't departed yet. A
+ * candidate cached earlier may have departed since it was found. The cache is cleared
+ * whenever a stored voyage has been committed, since its schedule may have changed.
+ * <p/>
+ * The routing engine it delegates to is selected with the {@code routing.engine}
+ * property.
+ */
+@Primary
+@Service
+public class CachingRoutingService implements RoutingService {
+
+	public static final String CACHE_NAME = "routeCandidates";
+
+	/**
+	 * Qualifies the routing service that actually finds the routes.
+	 */
+	public static final String ROUTING_ENGINE = "routingEngine";
+
+	private final RoutingService delegate;
+
+	private final Cache cache;
+
+	public CachingRoutingService(@Qualifier(ROUTING_ENGINE) RoutingService delegate, CacheManager cacheManager) {
+		this.delegate = delegate;
+		this.cache = cacheManager.getCache(CACHE_NAME);
+		Validate.notNull(cache, "Cache " + CACHE_NAME + " is required");
+	}
+
+	@Override
+	public List<Itinerary> fetchRoutesForSpecification(RouteSpecification routeSpecification) {
+		final LocalDate deadlineDay = LocalDate.ofInstant(routeSpecification.arrivalDeadline(), ZoneOffset.UTC);
+		final Key key = new Key(routeSpecification.origin().unLocode(), routeSpecification.destination().unLocode(),
+				deadlineDay);
+		final List<Itinerary> candidates = cache.get(key, () -> {
+			final Instant endOfDay = deadlineDay.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+			return List.copyOf(delegate.fetchRoutesForSpecification(new RouteSpecification(
+					routeSpecification.origin(), routeSpecification.destination(), endOfDay)));
+		});
+		final Instant now = Instant.now();
+		return candidates.stream()
+			.filter(itinerary -> !hasDeparted(itinerary, now))
+			.filter(routeSpecification::isSatisfiedBy)
+			.toList();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onVoyageStored(VoyageStored event) {
+		cache.clear();
+	}
+
+	private static boolean hasDeparted(Itinerary itinerary, Instant now) {
+		return !itinerary.legs().isEmpty() && itinerary.legs().get(0).loadTime().isBefore(now);
+	}
+
+	private record Key(UnLocode origin, UnLocode destination, LocalDate deadlineDay) {
+
+	}
+
+}
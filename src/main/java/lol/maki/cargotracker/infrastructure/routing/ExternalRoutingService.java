@@ -8,6 +8,8 @@ import lol.maki.cargotracker.domain.model.cargo.Leg;
 import lol.maki.cargotracker.domain.model.cargo.RouteSpecification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import lol.maki.cargotracker.domain.model.location.Location;
 import lol.maki.cargotracker.domain.model.location.LocationRepository;
@@ -26,8 +28,13 @@ import java.util.stream.Collectors;
  * Our end of the routing service. This is basically a data model translation layer
  * between our domain model and the API put forward by the routing team, which operates in
  * a different context from us.
+ * <p/>
+ * This is the default routing engine, see {@link ScheduleRoutingService} for the
+ * alternative.
  */
 @Service
+@Qualifier(CachingRoutingService.ROUTING_ENGINE)
+@ConditionalOnProperty(name = "routing.engine", havingValue = "pathfinder", matchIfMissing = true)
 public class ExternalRoutingService implements RoutingService {
 
 	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
@@ -0,0 +1,77 @@
+package lol.maki.cargotracker.infrastructure.routing;
+
+import lol.maki.cargotracker.domain.model.cargo.Itinerary;
+import lol.maki.cargotracker.domain.model.cargo.RouteSpecification;
+import lol.maki.cargotracker.domain.model.voyage.VoyageRepository;
+import lol.maki.cargotracker.domain.model.voyage.VoyageStored;
+import lol.maki.cargotracker.domain.service.RoutingService;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Finds routes in the schedules of our own voyages, instead of asking the external
+ * routing service. Selected with {@code routing.engine=schedule}.
+ * <p/>
+ * The carrier movements of all voyages are loaded into a {@link Timetable}, which is
+ * kept in the {@value #CACHE_NAME} cache until a stored voyage has been committed. Routes depart from the
+ * origin after the current time, and up to {@code routing.schedule.maxItineraries} of
+ * them are returned, the earliest arriving first.
+ */
+@Service
+@Qualifier(CachingRoutingService.ROUTING_ENGINE)
+@ConditionalOnProperty(name = "routing.engine", havingValue = "schedule")
+public class ScheduleRoutingService implements RoutingService {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	public static final String CACHE_NAME = "timetable";
+
+	private final VoyageRepository voyageRepository;
+
+	private final Cache cache;
+
+	private final int maxItineraries;
+
+	public ScheduleRoutingService(VoyageRepository voyageRepository, CacheManager cacheManager,
+			@Value("${routing.schedule.maxItineraries:5}") int maxItineraries) {
+		this.voyageRepository = voyageRepository;
+		this.cache = cacheManager.getCache(CACHE_NAME);
+		this.maxItineraries = maxItineraries;
+		Validate.notNull(cache, "Cache " + CACHE_NAME + " is required");
+	}
+
+	@Override
+	public List<Itinerary> fetchRoutesForSpecification(RouteSpecification routeSpecification) {
+		final Timetable timetable = cache.get(SimpleKey.EMPTY, this::loadTimetable);
+		return timetable.itineraries(routeSpecification.origin().unLocode(),
+				routeSpecification.destination().unLocode(), Instant.now(), routeSpecification.arrivalDeadline(),
+				maxItineraries);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onVoyageStored(VoyageStored event) {
+		cache.clear();
+	}
+
+	private Timetable loadTimetable() {
+		final long start = System.nanoTime();
+		final Timetable timetable = Timetable.of(voyageRepository.getAll());
+		logger.info("Loaded a timetable of {} carrier movements of {} voyages in {} ms", timetable.connections(),
+				timetable.voyages(), (System.nanoTime() - start) / 1_000_000);
+		return timetable;
+	}
+
+}
@@ -0,0 +1,275 @@
+package lol.maki.cargotracker.infrastructure.routing;
+
+import lol.maki.cargotracker.domain.model.cargo.Itinerary;
+import lol.maki.cargotracker.domain.model.cargo.Leg;
+import lol.maki.cargotracker.domain.model.location.Location;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import lol.maki.cargotracker.domain.model.voyage.CarrierMovement;
+import lol.maki.cargotracker.domain.model.voyage.Voyage;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The carrier movements of all voyages, as connections sorted by departure time, for
+ * finding routes with the connection scan algorithm.
+ * <p/>
+ * A single pass over the connections that depart after the earliest departure finds the
+ * earliest arrival at every location, and the voyage it was reached with. The pass stops
+ * at the first connection that departs after the arrival deadline, or after the earliest
+ * arrival at the destination, since no later connection can arrive earlier. Connections
+ * are stored in arrays of primitives, indexed by their position in departure order.
+ * <p/>
+ * Immutable, so that it can be shared by concurrent queries.
+ */
+final class Timetable {
+
+	private static final long UNREACHED = Long.MAX_VALUE;
+
+	private final List<Voyage> voyages;
+
+	private final List<Location> locations;
+
+	private final Map<UnLocode, Integer> locationIndexes;
+
+	private final long[] departureTimes;
+
+	private final long[] arrivalTimes;
+
+	private final int[] departureLocations;
+
+	private final int[] arrivalLocations;
+
+	private final int[] connectionVoyages;
+
+	private Timetable(List<Voyage> voyages, List<Location> locations, Map<UnLocode, Integer> locationIndexes,
+			List<Connection> connections) {
+		this.voyages = voyages;
+		this.locations = locations;
+		this.locationIndexes = locationIndexes;
+		this.departureTimes = new long[connections.size()];
+		this.arrivalTimes = new long[connections.size()];
+		this.departureLocations = new int[connections.size()];
+		this.arrivalLocations = new int[connections.size()];
+		this.connectionVoyages = new int[connections.size()];
+		for (int i = 0; i < connections.size(); i++) {
+			final Connection connection = connections.get(i);
+			departureTimes[i] = connection.departureTime();
+			arrivalTimes[i] = connection.arrivalTime();
+			departureLocations[i] = connection.departureLocation();
+			arrivalLocations[i] = connection.arrivalLocation();
+			connectionVoyages[i] = connection.voyage();
+		}
+	}
+
+	/**
+	 * @param voyages voyages
+	 * @return A timetable of the carrier movements of the voyages.
+	 */
+	static Timetable of(Collection<Voyage> voyages) {
+		final List<Voyage> voyageList = List.copyOf(voyages);
+		final List<Location> locations = new ArrayList<>();
+		final Map<UnLocode, Integer> locationIndexes = new HashMap<>();
+		final List<Connection> connections = new ArrayList<>();
+		for (int voyage = 0; voyage < voyageList.size(); voyage++) {
+			for (CarrierMovement movement : voyageList.get(voyage).schedule().carrierMovements()) {
+				connections.add(new Connection(movement.departureTime().toEpochMilli(),
+						movement.arrivalTime().toEpochMilli(),
+						locationIndex(movement.departureLocation(), locations, locationIndexes),
+						locationIndex(movement.arrivalLocation(), locations, locationIndexes), voyage));
+			}
+		}
+		connections.sort(Comparator.comparingLong(Connection::departureTime)
+			.thenComparingLong(Connection::arrivalTime));
+		return new Timetable(voyageList, List.copyOf(locations), Map.copyOf(locationIndexes), connections);
+	}
+
+	private static int locationIndex(Location location, List<Location> locations,
+			Map<UnLocode, Integer> locationIndexes) {
+		return locationIndexes.computeIfAbsent(location.unLocode(), unLocode -> {
+			locations.add(location);
+			return locations.size() - 1;
+		});
+	}
+
+	/**
+	 * @return Number of voyages.
+	 */
+	int voyages() {
+		return voyages.size();
+	}
+
+	/**
+	 * @return Number of connections, one per carrier movement.
+	 */
+	int connections() {
+		return departureTimes.length;
+	}
+
+	/**
+	 * Finds the itinerary that arrives first.
+	 * @param origin origin
+	 * @param destination destination
+	 * @param departAfter earliest departure from the origin
+	 * @param arrivalDeadline time the destination must be reached before
+	 * @return The itinerary, or {@code null} if the destination can't be reached in time.
+	 */
+	Itinerary earliestArrival(UnLocode origin, UnLocode destination, Instant departAfter, Instant arrivalDeadline) {
+		final List<Itinerary> itineraries = itineraries(origin, destination, departAfter, arrivalDeadline, 1);
+		return itineraries.isEmpty() ? null : itineraries.get(0);
+	}
+
+	/**
+	 * Finds up to {@code limit} itineraries, the earliest arriving first.
+	 * <p/>
+	 * After the earliest arriving itinerary, each further one is the earliest arriving
+	 * itinerary that avoids one more of the voyages of an itinerary found before, so that
+	 * the itineraries differ by at least one voyage.
+	 * @param origin origin
+	 * @param destination destination
+	 * @param departAfter earliest departure from the origin
+	 * @param arrivalDeadline time the destination must be reached before
+	 * @param limit maximum number of itineraries
+	 * @return The itineraries, may be empty if the destination can't be reached in time.
+	 */
+	List<Itinerary> itineraries(UnLocode origin, UnLocode destination, Instant departAfter, Instant arrivalDeadline,
+			int limit) {
+		final Integer from = locationIndexes.get(origin);
+		final Integer to = locationIndexes.get(destination);
+		if (from == null || to == null || from.equals(to) || limit < 1) {
+			return List.of();
+		}
+		final Query query = new Query(from, to, departAfter.toEpochMilli(), arrivalDeadline.toEpochMilli());
+		final PriorityQueue<Journey> candidates = new PriorityQueue<>(Comparator.comparingLong(Journey::arrivalTime)
+			.thenComparingInt(journey -> journey.rides().size()));
+		final Set<BitSet> searched = new HashSet<>();
+		final Set<List<Ride>> found = new HashSet<>();
+		final List<Itinerary> itineraries = new ArrayList<>(limit);
+		search(query, new BitSet(), searched, candidates);
+		while (itineraries.size() < limit && !candidates.isEmpty()) {
+			final Journey journey = candidates.poll();
+			if (!found.add(journey.rides())) {
+				continue;
+			}
+			itineraries.add(toItinerary(journey));
+			for (Ride ride : journey.rides()) {
+				final BitSet excludedVoyages = (BitSet) journey.excludedVoyages().clone();
+				excludedVoyages.set(connectionVoyages[ride.board()]);
+				search(query, excludedVoyages, searched, candidates);
+			}
+		}
+		return itineraries;
+	}
+
+	private void search(Query query, BitSet excludedVoyages, Set<BitSet> searched, PriorityQueue<Journey> candidates) {
+		if (searched.add(excludedVoyages)) {
+			final Journey journey = scan(query, excludedVoyages);
+			if (journey != null) {
+				candidates.add(journey);
+			}
+		}
+	}
+
+	private Journey scan(Query query, BitSet excludedVoyages) {
+		final long[] earliestArrivals = new long[locations.size()];
+		final int[] boardings = new int[locations.size()];
+		final int[] alightings = new int[locations.size()];
+		final int[] voyageBoardings = new int[voyages.size()];
+		Arrays.fill(earliestArrivals, UNREACHED);
+		Arrays.fill(voyageBoardings, -1);
+		earliestArrivals[query.origin()] = query.departAfter();
+
+		for (int c = firstDepartingAt(query.departAfter()); c < departureTimes.length; c++) {
+			if (departureTimes[c] >= Math.min(query.arrivalDeadline(), earliestArrivals[query.destination()])) {
+				break;
+			}
+			final int voyage = connectionVoyages[c];
+			if (arrivalTimes[c] >= query.arrivalDeadline() || excludedVoyages.get(voyage)) {
+				continue;
+			}
+			if (voyageBoardings[voyage] < 0) {
+				if (earliestArrivals[departureLocations[c]] > departureTimes[c]) {
+					continue;
+				}
+				voyageBoardings[voyage] = c;
+			}
+			final int arrivalLocation = arrivalLocations[c];
+			if (arrivalTimes[c] < earliestArrivals[arrivalLocation]) {
+				earliestArrivals[arrivalLocation] = arrivalTimes[c];
+				boardings[arrivalLocation] = voyageBoardings[voyage];
+				alightings[arrivalLocation] = c;
+			}
+		}
+		if (earliestArrivals[query.destination()] == UNREACHED) {
+			return null;
+		}
+
+		final List<Ride> rides = new ArrayList<>();
+		for (int location = query.destination(); location != query.origin();) {
+			final Ride ride = new Ride(boardings[location], alightings[location]);
+			rides.add(ride);
+			location = departureLocations[ride.board()];
+		}
+		Collections.reverse(rides);
+		return new Journey(earliestArrivals[query.destination()], List.copyOf(rides), excludedVoyages);
+	}
+
+	private int firstDepartingAt(long time) {
+		int low = 0;
+		int high = departureTimes.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (departureTimes[middle] < time) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private Itinerary toItinerary(Journey journey) {
+		final List<Leg> legs = new ArrayList<>(journey.rides().size());
+		for (Ride ride : journey.rides()) {
+			legs.add(new Leg(voyages.get(connectionVoyages[ride.board()]),
+					locations.get(departureLocations[ride.board()]), locations.get(arrivalLocations[ride.alight()]),
+					Instant.ofEpochMilli(departureTimes[ride.board()]),
+					Instant.ofEpochMilli(arrivalTimes[ride.alight()])));
+		}
+		return new Itinerary(legs);
+	}
+
+	private record Connection(long departureTime, long arrivalTime, int departureLocation, int arrivalLocation,
+			int voyage) {
+
+	}
+
+	private record Query(int origin, int destination, long departAfter, long arrivalDeadline) {
+
+	}
+
+	/**
+	 * A ride on one voyage, from the connection it is boarded at to the one it is left
+	 * after.
+	 */
+	private record Ride(int board, int alight) {
+
+	}
+
+	private record Journey(long arrivalTime, List<Ride> rides, BitSet excludedVoyages) {
+
+	}
+
+}
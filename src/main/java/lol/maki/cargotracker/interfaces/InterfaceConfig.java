@@ -1,8 +1,12 @@
 package lol.maki.cargotracker.interfaces;
 
 import am.ik.accesslogger.AccessLogger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @Configuration
 public class InterfaceConfig {
@@ -15,4 +19,26 @@ public class InterfaceConfig {
 		});
 	}
 
+	/**
+	 * Worker pool for importing uploaded handling report files. Defaults to one platform
+	 * thread per core. With {@code uploadDirectory.virtualThreads=true} every file gets
+	 * its own virtual thread instead, still bounded by {@code uploadDirectory.workers}.
+	 */
+	@Bean
+	public TaskExecutor uploadDirectoryTaskExecutor(
+			@Value("${uploadDirectory.workers:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int workers,
+			@Value("${uploadDirectory.virtualThreads:false}") boolean virtualThreads) {
+		if (virtualThreads) {
+			final SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("upload-");
+			executor.setVirtualThreads(true);
+			executor.setConcurrencyLimit(workers);
+			return executor;
+		}
+		final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setThreadNamePrefix("upload-");
+		executor.setCorePoolSize(workers);
+		executor.setMaxPoolSize(workers);
+		return executor;
+	}
+
 }
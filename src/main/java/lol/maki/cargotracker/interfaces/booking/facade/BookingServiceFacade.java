@@ -2,6 +2,7 @@ package lol.maki.cargotracker.interfaces.booking.facade;
 
 import lol.maki.cargotracker.domain.model.cargo.Cargo;
 import lol.maki.cargotracker.domain.model.cargo.CargoRepository;
+import lol.maki.cargotracker.domain.model.cargo.CargoSummary;
 import lol.maki.cargotracker.domain.model.cargo.Itinerary;
 import lol.maki.cargotracker.domain.model.cargo.TrackingId;
 import org.springframework.stereotype.Service;
@@ -52,7 +53,7 @@ public class BookingServiceFacade {
 	}
 
 	public CargoRoutingDTO loadCargoForRouting(String trackingId) {
-		final Cargo cargo = cargoRepository.find(new TrackingId(trackingId));
+		final Cargo cargo = cargoRepository.findWithItinerary(new TrackingId(trackingId));
 		final CargoRoutingDTOAssembler assembler = new CargoRoutingDTOAssembler();
 		return assembler.toDTO(cargo);
 	}
@@ -69,14 +70,23 @@ public class BookingServiceFacade {
 		bookingService.changeDestination(new TrackingId(trackingId), new UnLocode(destinationUnLocode));
 	}
 
-	public List<CargoRoutingDTO> listAllCargos() {
-		final List<Cargo> cargoList = cargoRepository.getAll();
-		final List<CargoRoutingDTO> dtoList = new ArrayList<CargoRoutingDTO>(cargoList.size());
-		final CargoRoutingDTOAssembler assembler = new CargoRoutingDTOAssembler();
-		for (Cargo cargo : cargoList) {
-			dtoList.add(assembler.toDTO(cargo));
-		}
-		return dtoList;
+	/**
+	 * Lists a page of the cargos matching a filter, ordered by tracking id.
+	 * @param filter filter
+	 * @param afterTrackingId last tracking id of the previous page, or {@code null} for
+	 * the first page
+	 * @param size maximum number of cargos in the page
+	 * @return A page of cargos
+	 */
+	public CargoSummaryPageDTO listCargos(CargoSummaryFilterDTO filter, String afterTrackingId, int size) {
+		final CargoSummaryDTOAssembler assembler = new CargoSummaryDTOAssembler();
+		// One more than the page size tells if there is a next page
+		final List<CargoSummary> summaries = cargoRepository.findSummaries(assembler.fromDTO(filter),
+				afterTrackingId == null || afterTrackingId.isBlank() ? null : new TrackingId(afterTrackingId),
+				size + 1);
+		final List<CargoSummaryDTO> cargos = summaries.stream().limit(size).map(assembler::toDTO).toList();
+		final String nextTrackingId = summaries.size() > size ? cargos.get(cargos.size() - 1).trackingId() : null;
+		return new CargoSummaryPageDTO(cargos, nextTrackingId);
 	}
 
 	public List<RouteCandidateDTO> requestPossibleRoutesForCargo(String trackingId) throws RemoteException {
@@ -0,0 +1,12 @@
+package lol.maki.cargotracker.interfaces.booking.facade;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * DTO for a cargo in a list of cargos.
+ */
+public record CargoSummaryDTO(String trackingId, String origin, String finalDestination, Instant arrivalDeadline,
+		boolean routed, boolean misrouted) implements Serializable {
+
+}
@@ -0,0 +1,51 @@
+package lol.maki.cargotracker.interfaces.booking.facade;
+
+import lol.maki.cargotracker.domain.model.cargo.CargoSummary;
+import lol.maki.cargotracker.domain.model.cargo.CargoSummaryFilter;
+import lol.maki.cargotracker.domain.model.cargo.RoutingStatus;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Assembler class for the CargoSummaryDTO and CargoSummaryFilterDTO.
+ */
+public class CargoSummaryDTOAssembler {
+
+	/**
+	 * @param summary cargo summary
+	 * @return A cargo summary DTO
+	 */
+	public CargoSummaryDTO toDTO(final CargoSummary summary) {
+		return new CargoSummaryDTO(summary.trackingId(), summary.origin(), summary.destination(),
+				summary.arrivalDeadline(), summary.routingStatus() != RoutingStatus.NOT_ROUTED,
+				summary.routingStatus() == RoutingStatus.MISROUTED);
+	}
+
+	/**
+	 * @param filter cargo summary filter DTO
+	 * @return A cargo summary filter
+	 */
+	public CargoSummaryFilter fromDTO(final CargoSummaryFilterDTO filter) {
+		return new CargoSummaryFilter(
+				isBlank(filter.routingStatus()) ? null : RoutingStatus.valueOf(filter.routingStatus()),
+				unLocode(filter.originUnlocode()), unLocode(filter.destinationUnlocode()),
+				startOfDay(filter.arrivalDeadlineFrom()),
+				filter.arrivalDeadlineTo() == null ? null : startOfDay(filter.arrivalDeadlineTo().plusDays(1)));
+	}
+
+	private static UnLocode unLocode(String unlocode) {
+		return isBlank(unlocode) ? null : new UnLocode(unlocode);
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.isBlank();
+	}
+
+	private static Instant startOfDay(LocalDate date) {
+		return date == null ? null : date.atStartOfDay().toInstant(ZoneOffset.UTC);
+	}
+
+}
@@ -0,0 +1,24 @@
+package lol.maki.cargotracker.interfaces.booking.facade;
+
+import jakarta.validation.constraints.Pattern;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * DTO for filtering a list of cargos. Empty criteria match every cargo, and the arrival
+ * deadline range includes both days. A routing status or UN locode that can't match any
+ * cargo is a binding error.
+ */
+public record CargoSummaryFilterDTO(@Pattern(regexp = "|NOT_ROUTED|ROUTED|MISROUTED") String routingStatus,
+		@Pattern(regexp = UNLOCODE) String originUnlocode, @Pattern(regexp = UNLOCODE) String destinationUnlocode,
+		@DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate arrivalDeadlineFrom,
+		@DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate arrivalDeadlineTo) implements Serializable {
+
+	/**
+	 * Empty, or the format of {@link lol.maki.cargotracker.domain.model.location.UnLocode}.
+	 */
+	static final String UNLOCODE = "|[a-zA-Z]{2}[a-zA-Z2-9]{3}";
+
+}
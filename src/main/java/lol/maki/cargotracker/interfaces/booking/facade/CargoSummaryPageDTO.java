@@ -0,0 +1,12 @@
+package lol.maki.cargotracker.interfaces.booking.facade;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * DTO for a page of cargos. The next page is requested with the tracking id of the last
+ * cargo of this one, which is {@code null} if this is the last page.
+ */
+public record CargoSummaryPageDTO(List<CargoSummaryDTO> cargos, String nextTrackingId) implements Serializable {
+
+}
@@ -1,10 +1,12 @@
 package lol.maki.cargotracker.interfaces.booking.web;
 
+import jakarta.validation.Valid;
 import lol.maki.cargotracker.interfaces.booking.facade.*;
 import lol.maki.cargotracker.interfaces.tracking.web.CargoTrackingController;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -33,6 +35,8 @@ import java.util.stream.Collectors;
 @RequestMapping("/admin")
 public final class CargoAdminController {
 
+	private static final int MAX_PAGE_SIZE = 500;
+
 	private final BookingServiceFacade bookingServiceFacade;
 
 	public CargoAdminController(BookingServiceFacade bookingServiceFacade) {
@@ -61,10 +65,18 @@ public final class CargoAdminController {
 	}
 
 	@GetMapping("/list")
-	public String list(Model model) throws Exception {
-		List<CargoRoutingDTO> cargoList = bookingServiceFacade.listAllCargos();
+	public String list(@Valid @ModelAttribute("filter") CargoSummaryFilterDTO filter,
+			@RequestParam(required = false) String after, @RequestParam(defaultValue = "50") int size, Model model)
+			throws Exception {
+		int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+		CargoSummaryPageDTO page = bookingServiceFacade.listCargos(filter, after, pageSize);
+		List<LocationDTO> locations = bookingServiceFacade.listShippingLocations();
 
-		model.addAttribute("cargoList", cargoList);
+		model.addAttribute("cargoList", page.cargos());
+		model.addAttribute("nextTrackingId", page.nextTrackingId());
+		model.addAttribute("size", pageSize);
+		model.addAttribute("locations", locations);
+		model.addAttribute("routingStatuses", List.of("NOT_ROUTED", "ROUTED", "MISROUTED"));
 		return "admin/list";
 	}
 
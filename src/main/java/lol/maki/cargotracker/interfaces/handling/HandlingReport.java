@@ -1,21 +1,28 @@
 package lol.maki.cargotracker.interfaces.handling;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 public class HandlingReport {
 
+	@NotNull
 	@JsonProperty(required = true)
 	public LocalDateTime completionTime;
 
+	@NotEmpty
 	@JsonProperty(required = true)
-	public List<String> trackingIds;
+	public List<@NotBlank String> trackingIds;
 
+	@NotBlank
 	@JsonProperty(required = true)
 	public String type;
 
+	@NotBlank
 	@JsonProperty(required = true)
 	public String unLocode;
 
@@ -14,6 +14,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
@@ -29,8 +30,17 @@ public class HandlingReportParser {
 	public static final SimpleDateFormat SIMPLE_DATE_FORMAT = new SimpleDateFormat(ISO_8601_FORMAT);
 
 	public static UnLocode parseUnLocode(final String unlocode) {
+		return parseUnLocode(unlocode, UnLocode::new);
+	}
+
+	/**
+	 * @param unlocode UN Locode string
+	 * @param unLocodes creates the UN Locode, e.g. by looking up a known one
+	 * @return UN Locode.
+	 */
+	public static UnLocode parseUnLocode(final String unlocode, final Function<String, UnLocode> unLocodes) {
 		try {
-			return new UnLocode(unlocode);
+			return unLocodes.apply(unlocode);
 		}
 		catch (IllegalArgumentException | NullPointerException e) {
 			throw new IllegalArgumentException("Failed to parse UNLO code: " + unlocode, e);
@@ -89,11 +99,12 @@ public class HandlingReportParser {
 		return Instant.ofEpochSecond(completionTime.toEpochSecond(ZoneOffset.UTC));
 	}
 
-	public static List<HandlingEventRegistrationAttempt> parse(final HandlingReport handlingReport) {
+	public static List<HandlingEventRegistrationAttempt> parse(final HandlingReport handlingReport,
+			final Function<String, UnLocode> unLocodes) {
 		final Instant completionTime = parseCompletionTime(handlingReport.getCompletionTime());
 		final VoyageNumber voyageNumber = parseVoyageNumber(handlingReport.getVoyageNumber());
 		final Type type = parseEventType(handlingReport.getType());
-		final UnLocode unLocode = parseUnLocode(handlingReport.getUnLocode());
+		final UnLocode unLocode = parseUnLocode(handlingReport.getUnLocode(), unLocodes);
 		final List<TrackingId> trackingIds = parseTrackingIds(handlingReport.getTrackingIds());
 		return trackingIds.stream()
 			.map(trackingId -> new HandlingEventRegistrationAttempt(Instant.now(), completionTime, trackingId,
@@ -1,22 +1,38 @@
 package lol.maki.cargotracker.interfaces.handling.api;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import lol.maki.cargotracker.application.ApplicationEvents;
 import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.domain.model.location.LocationRepository;
 import lol.maki.cargotracker.interfaces.handling.HandlingReport;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static lol.maki.cargotracker.interfaces.handling.HandlingReportParser.parse;
 
 /**
@@ -24,6 +40,13 @@ import static lol.maki.cargotracker.interfaces.handling.HandlingReportParser.par
  * incoming data, and in case of a valid registration attempt, sends an asynchronous
  * message with the information to the handling event registration system for proper
  * registration.
+ * <p>
+ * Reports can be submitted one at a time, or in bulk as a JSON array or as
+ * newline-delimited JSON. Bulk bodies are bound incrementally, one report at a time
+ * straight from the stream, and the resulting registration attempts are sent in batches. Each report of a bulk body is
+ * validated on its own, and the response tells for each report whether it was accepted,
+ * so that a client only needs to submit the rejected ones again. A report is only
+ * accepted once the batch it belongs to has been sent.
  */
 @RestController
 public class HandlingReportRestController {
@@ -32,15 +55,29 @@ public class HandlingReportRestController {
 
 	private final ApplicationEvents applicationEvents;
 
-	public HandlingReportRestController(ApplicationEvents applicationEvents) {
+	private final ObjectMapper objectMapper;
+
+	private final Validator validator;
+
+	private final LocationRepository locationRepository;
+
+	private final int batchSize;
+
+	public HandlingReportRestController(ApplicationEvents applicationEvents, ObjectMapper objectMapper,
+			Validator validator, LocationRepository locationRepository,
+			@Value("${handlingReport.bulk.batchSize:500}") int batchSize) {
 		this.applicationEvents = applicationEvents;
+		this.objectMapper = objectMapper;
+		this.validator = validator;
+		this.locationRepository = locationRepository;
+		this.batchSize = batchSize;
 	}
 
 	@PostMapping(value = "/handlingReport", produces = APPLICATION_JSON_VALUE, consumes = APPLICATION_JSON_VALUE)
 	public ResponseEntity<?> submitReport(@Valid @RequestBody HandlingReport handlingReport) {
 		try {
-			List<HandlingEventRegistrationAttempt> attempts = parse(handlingReport);
-			attempts.forEach(applicationEvents::receivedHandlingEventRegistrationAttempt);
+			List<HandlingEventRegistrationAttempt> attempts = parse(handlingReport, locationRepository::unLocode);
+			applicationEvents.receivedHandlingEventRegistrationAttempts(attempts);
 		}
 		catch (Exception e) {
 			logger.error("Unexpected error in submitReport", e);
@@ -49,4 +86,118 @@ public class HandlingReportRestController {
 		return ResponseEntity.status(CREATED).build();
 	}
 
+	@PostMapping(value = "/handlingReport/bulk", produces = APPLICATION_JSON_VALUE,
+			consumes = { APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE })
+	public ResponseEntity<List<HandlingReportResult>> submitReports(InputStream body) {
+		// One result per report, at the index of the report
+		final List<HandlingReportResult> results = new ArrayList<>();
+		final Batch batch = new Batch();
+		try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+			JsonToken token = parser.nextToken();
+			final boolean array = token == JsonToken.START_ARRAY;
+			if (array) {
+				token = parser.nextToken();
+			}
+			while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+				results.add(submit(results.size(), parser, batch));
+				if (batch.attempts.size() >= batchSize) {
+					flush(batch, results);
+				}
+				token = parser.nextToken();
+			}
+		}
+		catch (JsonProcessingException e) {
+			// The rest of the body can't be tokenized reliably after a syntax error
+			results.add(HandlingReportResult.rejected(results.size(), "Malformed JSON: " + e.getOriginalMessage()));
+		}
+		catch (IOException e) {
+			logger.warn("Could not read bulk handling reports", e);
+			results.add(
+					HandlingReportResult.rejected(results.size(), "Could not read request body: " + e.getMessage()));
+		}
+		flush(batch, results);
+		return ResponseEntity.ok(results);
+	}
+
+	/**
+	 * Binds the report at the current token of the parser and adds its registration
+	 * attempts to the batch.
+	 * @throws IOException if the body can't be read or tokenized.
+	 */
+	private HandlingReportResult submit(final int index, final JsonParser parser, final Batch batch)
+			throws IOException {
+		// The context the report is a value of
+		final JsonStreamContext enclosing = parser.isExpectedStartObjectToken() || parser.isExpectedStartArrayToken()
+				? parser.getParsingContext().getParent() : parser.getParsingContext();
+		try {
+			final HandlingReport handlingReport = parser.readValueAs(HandlingReport.class);
+			if (handlingReport == null) {
+				return HandlingReportResult.rejected(index, "Report must not be null");
+			}
+			final Set<ConstraintViolation<HandlingReport>> violations = validator.validate(handlingReport);
+			if (!violations.isEmpty()) {
+				return HandlingReportResult.rejected(index, violations.stream()
+					.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+					.sorted()
+					.collect(Collectors.joining(", ")));
+			}
+			final List<HandlingEventRegistrationAttempt> attempts = parse(handlingReport,
+					locationRepository::unLocode);
+			batch.attempts.addAll(attempts);
+			batch.reports.add(index);
+			return HandlingReportResult.accepted(index, attempts.size());
+		}
+		catch (DatabindException e) {
+			skipRemainder(parser, enclosing);
+			return HandlingReportResult.rejected(index, e.getOriginalMessage());
+		}
+		catch (IllegalArgumentException e) {
+			return HandlingReportResult.rejected(index, e.getMessage());
+		}
+	}
+
+	/**
+	 * Skips the rest of a report that failed to bind, which can fail anywhere within the
+	 * report, so that the parser is positioned at its last token like after binding it.
+	 */
+	private static void skipRemainder(final JsonParser parser, final JsonStreamContext enclosing) throws IOException {
+		while (parser.getParsingContext() != enclosing) {
+			parser.skipChildren();
+			if (parser.getParsingContext() != enclosing && parser.nextToken() == null) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Sends the batch. If that fails, the reports of the batch are rejected instead.
+	 */
+	private void flush(final Batch batch, final List<HandlingReportResult> results) {
+		if (batch.attempts.isEmpty()) {
+			return;
+		}
+		try {
+			applicationEvents.receivedHandlingEventRegistrationAttempts(List.copyOf(batch.attempts));
+		}
+		catch (RuntimeException e) {
+			logger.error("Could not submit {} registration attempts", batch.attempts.size(), e);
+			for (int index : batch.reports) {
+				results.set(index, HandlingReportResult.rejected(index, "Could not be submitted: " + e.getMessage()));
+			}
+		}
+		batch.attempts.clear();
+		batch.reports.clear();
+	}
+
+	/**
+	 * Registration attempts waiting to be sent, and the reports they come from.
+	 */
+	private static final class Batch {
+
+		private final List<HandlingEventRegistrationAttempt> attempts = new ArrayList<>();
+
+		private final List<Integer> reports = new ArrayList<>();
+
+	}
+
 }
@@ -0,0 +1,27 @@
+package lol.maki.cargotracker.interfaces.handling.api;
+
+/**
+ * Outcome of a single handling report submitted to the bulk endpoint.
+ *
+ * @param index position of the report in the request body, starting at 0
+ * @param status whether the report was accepted for registration
+ * @param registrationAttempts number of registration attempts queued for the report
+ * @param message reason for rejection, null for accepted reports
+ */
+public record HandlingReportResult(int index, Status status, int registrationAttempts, String message) {
+
+	public enum Status {
+
+		ACCEPTED, REJECTED
+
+	}
+
+	static HandlingReportResult accepted(int index, int registrationAttempts) {
+		return new HandlingReportResult(index, Status.ACCEPTED, registrationAttempts, null);
+	}
+
+	static HandlingReportResult rejected(int index, String message) {
+		return new HandlingReportResult(index, Status.REJECTED, 0, message);
+	}
+
+}
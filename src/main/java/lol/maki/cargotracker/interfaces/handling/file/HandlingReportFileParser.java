@@ -0,0 +1,35 @@
+package lol.maki.cargotracker.interfaces.handling.file;
+
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Parses uploaded handling report files. Each line holds one registration attempt as
+ * four or five columns separated by two or more whitespace characters: completion time,
+ * tracking id, an optional voyage number, UN/LOCODE and event type.
+ */
+public interface HandlingReportFileParser {
+
+	/**
+	 * Parses a file, passing each registration attempt and each rejected line to the
+	 * handler in file order.
+	 * @param file the file to parse.
+	 * @param handler receives the parsed attempts and the rejected lines.
+	 * @throws IOException if reading the file, or handling a line, fails.
+	 */
+	void parse(Path file, Handler handler) throws IOException;
+
+	/**
+	 * Callback for the lines of a parsed file.
+	 */
+	interface Handler {
+
+		void onAttempt(HandlingEventRegistrationAttempt attempt) throws IOException;
+
+		void onRejectedLine(String line, Exception cause) throws IOException;
+
+	}
+
+}
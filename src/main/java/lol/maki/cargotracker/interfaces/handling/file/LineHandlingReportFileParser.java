@@ -0,0 +1,86 @@
+package lol.maki.cargotracker.interfaces.handling.file;
+
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.domain.model.location.LocationRepository;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import lol.maki.cargotracker.domain.model.voyage.VoyageNumber;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.regex.Pattern;
+
+import static lol.maki.cargotracker.interfaces.handling.HandlingReportParser.*;
+
+/**
+ * Reads handling report files line by line and parses the columns with
+ * {@link lol.maki.cargotracker.interfaces.handling.HandlingReportParser}.
+ */
+@Component
+@ConditionalOnProperty(name = "uploadDirectory.parser", havingValue = "line", matchIfMissing = true)
+public class LineHandlingReportFileParser implements HandlingReportFileParser {
+
+	private static final Pattern COLUMN_SEPARATOR = Pattern.compile("\\s{2,}");
+
+	private final LocationRepository locationRepository;
+
+	public LineHandlingReportFileParser(LocationRepository locationRepository) {
+		this.locationRepository = locationRepository;
+	}
+
+	@Override
+	public void parse(final Path file, final Handler handler) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				final HandlingEventRegistrationAttempt attempt;
+				try {
+					String[] columns = parseLine(line);
+					attempt = parseAttempt(columns[0], columns[1], columns[2], columns[3], columns[4]);
+				}
+				catch (Exception e) {
+					handler.onRejectedLine(line, e);
+					continue;
+				}
+				handler.onAttempt(attempt);
+			}
+		}
+	}
+
+	private String[] parseLine(final String line) {
+		final String[] columns = COLUMN_SEPARATOR.split(line);
+		if (columns.length == 5) {
+			return new String[] { columns[0], columns[1], columns[2], columns[3], columns[4] };
+		}
+		else if (columns.length == 4) {
+			return new String[] { columns[0], columns[1], "", columns[2], columns[3] };
+		}
+		else {
+			throw new IllegalArgumentException("Wrong number of columns on line: %s, must be 4 or 5".formatted(line));
+		}
+	}
+
+	private HandlingEventRegistrationAttempt parseAttempt(String completionTimeStr, String trackingIdStr,
+			String voyageNumberStr, String unLocodeStr, String eventTypeStr) throws Exception {
+		try {
+			final Instant date = parseDate(completionTimeStr);
+			final TrackingId trackingId = parseTrackingId(trackingIdStr);
+			final VoyageNumber voyageNumber = parseVoyageNumber(voyageNumberStr);
+			final HandlingEvent.Type eventType = parseEventType(eventTypeStr);
+			final UnLocode unLocode = parseUnLocode(unLocodeStr, locationRepository::unLocode);
+			return new HandlingEventRegistrationAttempt(Instant.now(), date, trackingId, voyageNumber, eventType,
+					unLocode);
+		}
+		catch (IllegalArgumentException e) {
+			throw new Exception("Error parsing HandlingReport", e);
+		}
+	}
+
+}
@@ -0,0 +1,285 @@
+package lol.maki.cargotracker.interfaces.handling.file;
+
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.domain.model.location.LocationRepository;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import lol.maki.cargotracker.domain.model.voyage.VoyageNumber;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import static lol.maki.cargotracker.interfaces.handling.HandlingReportParser.ISO_8601_FORMAT;
+
+/**
+ * Memory maps handling report files and parses them in place. Column boundaries, dates,
+ * UN/LOCODEs and event types are decoded directly from the mapped bytes, and Strings are
+ * only created for the values that end up in the registration attempt, or for lines that
+ * are rejected.
+ * <p/>
+ * Large files are mapped in windows that always end on a line boundary, so a line must
+ * fit in a single window.
+ */
+@Component
+@ConditionalOnProperty(name = "uploadDirectory.parser", havingValue = "mapped")
+public class MappedHandlingReportFileParser implements HandlingReportFileParser {
+
+	private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+	private static final HandlingEvent.Type[] TYPES = HandlingEvent.Type.values();
+
+	private static final byte[][] TYPE_NAMES = Arrays.stream(TYPES)
+		.map(type -> type.name().getBytes(StandardCharsets.US_ASCII))
+		.toArray(byte[][]::new);
+
+	private static final int DATE_TIME_LENGTH = ISO_8601_FORMAT.length();
+
+	private static final int DATE_TIME_WITH_SECONDS_LENGTH = DATE_TIME_LENGTH + 3;
+
+	private final LocationRepository locationRepository;
+
+	private final int windowSize;
+
+	public MappedHandlingReportFileParser(LocationRepository locationRepository) {
+		this(locationRepository, DEFAULT_WINDOW_SIZE);
+	}
+
+	MappedHandlingReportFileParser(LocationRepository locationRepository, int windowSize) {
+		this.locationRepository = locationRepository;
+		this.windowSize = windowSize;
+	}
+
+	@Override
+	public void parse(final Path file, final Handler handler) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final LineParser lineParser = new LineParser();
+			final long size = channel.size();
+			long position = 0;
+			while (position < size) {
+				final int length = (int) Math.min(windowSize, size - position);
+				final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+				final boolean lastWindow = position + length == size;
+				final int end = lastWindow ? length : lastIndexOf(window, (byte) '\n', length) + 1;
+				if (end == 0) {
+					throw new IOException(
+							"Line at offset %d is longer than %d bytes".formatted(position, windowSize));
+				}
+				int lineStart = 0;
+				for (int i = 0; i < end; i++) {
+					if (window.get(i) == '\n') {
+						lineParser.parse(window, lineStart, i, handler);
+						lineStart = i + 1;
+					}
+				}
+				if (lineStart < end) {
+					lineParser.parse(window, lineStart, end, handler);
+				}
+				position += end;
+			}
+		}
+	}
+
+	private static int lastIndexOf(final MappedByteBuffer buffer, final byte b, final int end) {
+		for (int i = end - 1; i >= 0; i--) {
+			if (buffer.get(i) == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Parses single lines of a mapped window. Keeps the column offsets and a scratch
+	 * buffer for decoding Strings, so they are reused across lines.
+	 */
+	private final class LineParser {
+
+		private static final int MAX_COLUMNS = 5;
+
+		private final int[] starts = new int[MAX_COLUMNS];
+
+		private final int[] ends = new int[MAX_COLUMNS];
+
+		private byte[] scratch = new byte[64];
+
+		private MappedByteBuffer window;
+
+		void parse(final MappedByteBuffer window, final int from, final int to, final Handler handler)
+				throws IOException {
+			this.window = window;
+			final int end = to > from && window.get(to - 1) == '\r' ? to - 1 : to;
+			final HandlingEventRegistrationAttempt attempt;
+			try {
+				attempt = parseAttempt(from, end);
+			}
+			catch (IllegalArgumentException | DateTimeException e) {
+				handler.onRejectedLine(decode(from, end), new Exception("Error parsing HandlingReport", e));
+				return;
+			}
+			handler.onAttempt(attempt);
+		}
+
+		private HandlingEventRegistrationAttempt parseAttempt(final int from, final int to) {
+			final int columns = splitColumns(from, to);
+			if (columns != 4 && columns != 5) {
+				throw new IllegalArgumentException(
+						"Wrong number of columns on line: %s, must be 4 or 5".formatted(decode(from, to)));
+			}
+			final int unLocodeColumn = columns - 2;
+			final int typeColumn = columns - 1;
+
+			final Instant completionTime = parseDate(starts[0], ends[0]);
+			final HandlingEvent.Type type = parseEventType(starts[typeColumn], ends[typeColumn]);
+			checkUnLocode(starts[unLocodeColumn], ends[unLocodeColumn]);
+
+			final TrackingId trackingId = new TrackingId(decode(starts[1], ends[1]));
+			final VoyageNumber voyageNumber = columns == 5 ? new VoyageNumber(decode(starts[2], ends[2])) : null;
+			final UnLocode unLocode = locationRepository.unLocode(decode(starts[unLocodeColumn], ends[unLocodeColumn]));
+			return new HandlingEventRegistrationAttempt(Instant.now(), completionTime, trackingId, voyageNumber, type,
+					unLocode);
+		}
+
+		/**
+		 * Finds the columns of a line, which are separated by two or more whitespace
+		 * characters.
+		 * @return the number of columns, which may exceed the number of recorded offsets.
+		 */
+		private int splitColumns(final int from, final int to) {
+			int columns = 0;
+			int columnStart = from;
+			int i = from;
+			while (i < to) {
+				if (isWhitespace(window.get(i)) && i + 1 < to && isWhitespace(window.get(i + 1))) {
+					columns = addColumn(columns, columnStart, i);
+					i += 2;
+					while (i < to && isWhitespace(window.get(i))) {
+						i++;
+					}
+					columnStart = i;
+				}
+				else {
+					i++;
+				}
+			}
+			if (columnStart < to) {
+				columns = addColumn(columns, columnStart, to);
+			}
+			return columns;
+		}
+
+		private int addColumn(final int columns, final int start, final int end) {
+			if (columns < MAX_COLUMNS) {
+				starts[columns] = start;
+				ends[columns] = end;
+			}
+			return columns + 1;
+		}
+
+		private Instant parseDate(final int start, final int end) {
+			final int length = end - start;
+			if ((length != DATE_TIME_LENGTH && length != DATE_TIME_WITH_SECONDS_LENGTH) || window.get(start + 4) != '-'
+					|| window.get(start + 7) != '-' || window.get(start + 10) != ' ' || window.get(start + 13) != ':'
+					|| (length == DATE_TIME_WITH_SECONDS_LENGTH && window.get(start + 16) != ':')) {
+				throw invalidDate(start, end);
+			}
+			final int year = digits(start, 4);
+			final int month = digits(start + 5, 2);
+			final int day = digits(start + 8, 2);
+			final int hour = digits(start + 11, 2);
+			final int minute = digits(start + 14, 2);
+			final int second = length == DATE_TIME_WITH_SECONDS_LENGTH ? digits(start + 17, 2) : 0;
+			if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+				throw invalidDate(start, end);
+			}
+			final long epochSecond = LocalDate.of(year, month, day).toEpochDay() * 86_400
+					+ LocalTime.of(hour, minute, second).toSecondOfDay();
+			return Instant.ofEpochSecond(epochSecond);
+		}
+
+		/**
+		 * @return the decimal value of the digits, or -1 if any of them is not a digit.
+		 */
+		private int digits(final int start, final int count) {
+			int value = 0;
+			for (int i = start; i < start + count; i++) {
+				final int digit = window.get(i) - '0';
+				if (digit < 0 || digit > 9) {
+					return -1;
+				}
+				value = value * 10 + digit;
+			}
+			return value;
+		}
+
+		private IllegalArgumentException invalidDate(final int start, final int end) {
+			return new IllegalArgumentException("Invalid date format: " + decode(start, end)
+					+ ", must be on ISO 8601 format: " + ISO_8601_FORMAT);
+		}
+
+		private HandlingEvent.Type parseEventType(final int start, final int end) {
+			for (int t = 0; t < TYPE_NAMES.length; t++) {
+				final byte[] name = TYPE_NAMES[t];
+				if (name.length == end - start && matches(name, start)) {
+					return TYPES[t];
+				}
+			}
+			throw new IllegalArgumentException(decode(start, end)
+					+ " is not a valid handling event type. Valid types are: " + Arrays.toString(TYPES));
+		}
+
+		private boolean matches(final byte[] name, final int start) {
+			for (int i = 0; i < name.length; i++) {
+				if (window.get(start + i) != name[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Same rules as the UnLocode pattern: two letters followed by three letters or
+		 * digits 2-9.
+		 */
+		private void checkUnLocode(final int start, final int end) {
+			boolean valid = end - start == 5;
+			for (int i = 0; valid && i < 5; i++) {
+				final byte b = window.get(start + i);
+				valid = isLetter(b) || (i >= 2 && b >= '2' && b <= '9');
+			}
+			if (!valid) {
+				throw new IllegalArgumentException("Failed to parse UNLO code: " + decode(start, end));
+			}
+		}
+
+		private String decode(final int start, final int end) {
+			final int length = end - start;
+			if (scratch.length < length) {
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			}
+			window.get(start, scratch, 0, length);
+			return new String(scratch, 0, length, StandardCharsets.UTF_8);
+		}
+
+		private static boolean isLetter(final byte b) {
+			return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+		}
+
+		private static boolean isWhitespace(final byte b) {
+			return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+		}
+
+	}
+
+}
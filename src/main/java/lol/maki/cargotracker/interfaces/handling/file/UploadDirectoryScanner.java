@@ -1,36 +1,81 @@
 package lol.maki.cargotracker.interfaces.handling.file;
 
-import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import lol.maki.cargotracker.application.ApplicationEvents;
 import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
-import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
-import lol.maki.cargotracker.domain.model.location.UnLocode;
-import lol.maki.cargotracker.domain.model.voyage.VoyageNumber;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-
-import static lol.maki.cargotracker.interfaces.handling.HandlingReportParser.*;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Periodically scans a certain directory for files and attempts to parse handling event
- * registrations from the contents.
+ * registrations from the contents. When {@link UploadDirectoryWatcher} is enabled, files
+ * are submitted as soon as they are written, and the periodic scan only serves as a
+ * fallback sweep.
+ * <p/>
+ * Producers may signal that a file is complete by writing an empty {@code <name>.done}
+ * marker next to it. Markers are never imported themselves and are removed once the file
+ * they belong to has been claimed. A file without a marker is only imported once its size
+ * and modification time are the same on two consecutive scans, so that a file that is
+ * still being written isn't partly imported.
+ * <p/>
+ * A scan only claims files and submits them to the worker pool, it never waits for an
+ * import. The scheduler thread it runs on is shared with other scheduled tasks, such as
+ * the outbox relay, which a long import would otherwise hold up.
+ * <p/>
+ * Each file is claimed by atomically moving it into the {@code processing} subdirectory
+ * before it is parsed, so that concurrent scans, on this node or on other nodes sharing
+ * the directory, never parse the same file twice. The claimed file is named after the
+ * uploaded one, the {@code uploadDirectory.nodeId} of this node and a random id, so that
+ * a file uploaded again under the same name while the first one is imported doesn't
+ * replace it. Claimed files are processed concurrently on a bounded worker pool.
  * <p/>
- * Files that fail to parse are moved into a separate directory, successful files are
- * deleted.
+ * The number of lines of a file that have been published is recorded in a
+ * {@code <name>.progress} file next to the claimed file after every chunk. Files this node
+ * had claimed but not imported when it stopped, for example because it crashed, are
+ * imported again on the first scan, skipping the lines that had already been published.
+ * Nodes sharing the directory must therefore have distinct node ids that survive a
+ * restart; the default is the host name.
+ * <p/>
+ * Files are streamed through a {@link HandlingReportFileParser} and the parsed
+ * registration attempts are published in chunks of a bounded size, so memory use does not
+ * depend on the size of the file.
+ * <p/>
+ * Files that fail to parse are moved into a separate directory, together with their
+ * progress file, successful files are deleted. A failed file can be retried by moving
+ * both back into the upload directory, and its import resumes after the lines that had
+ * been published.
  */
 @Component
 public class UploadDirectoryScanner implements InitializingBean {
@@ -39,122 +84,407 @@ public class UploadDirectoryScanner implements InitializingBean {
 
 	private final File parseFailureDirectory;
 
+	private final File processingDirectory;
+
+	private final String nodeId;
+
+	private final int chunkSize;
+
 	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+	static final String DONE_MARKER_SUFFIX = ".done";
+
+	static final String CLAIM_SEPARATOR = ".claim-";
+
+	static final String PROGRESS_SUFFIX = ".progress";
+
+	private static final int UUID_LENGTH = 36;
+
 	private final ApplicationEvents applicationEvents;
 
+	private final TaskExecutor taskExecutor;
+
+	private final HandlingReportFileParser parser;
+
+	private final Counter acceptedLines;
+
+	private final Counter rejectedLines;
+
+	private final Timer fileTimer;
+
+	/**
+	 * Files claimed by this node that are being imported.
+	 */
+	private final Set<Path> claims = ConcurrentHashMap.newKeySet();
+
+	private final AtomicBoolean recovered = new AtomicBoolean();
+
+	/**
+	 * Files without a marker as they were observed by the previous scan.
+	 */
+	private Map<File, Observation> observations = Map.of();
+
 	public UploadDirectoryScanner(@Value("${uploadDirectory}") File uploadDirectory,
-			@Value("${parseFailureDirectory}") File parseFailureDirectory, ApplicationEvents applicationEvents) {
+			@Value("${parseFailureDirectory}") File parseFailureDirectory,
+			@Value("${uploadDirectory.nodeId:}") String nodeId,
+			@Value("${uploadDirectory.chunkSize:500}") int chunkSize,
+			ApplicationEvents applicationEvents,
+			@Qualifier("uploadDirectoryTaskExecutor") TaskExecutor taskExecutor, HandlingReportFileParser parser,
+			MeterRegistry meterRegistry) {
 		this.uploadDirectory = uploadDirectory;
 		this.parseFailureDirectory = parseFailureDirectory;
+		this.processingDirectory = new File(uploadDirectory, "processing");
+		// Only characters that are safe in a file name
+		this.nodeId = (nodeId.isBlank() ? hostName() : nodeId).replaceAll("[^A-Za-z0-9._-]", "_");
+		this.chunkSize = chunkSize;
 		this.applicationEvents = applicationEvents;
+		this.taskExecutor = taskExecutor;
+		this.parser = parser;
+		this.acceptedLines = Counter.builder("cargotracker.upload.lines")
+			.description("Lines read from uploaded handling report files")
+			.tag("outcome", "accepted")
+			.register(meterRegistry);
+		this.rejectedLines = Counter.builder("cargotracker.upload.lines")
+			.description("Lines read from uploaded handling report files")
+			.tag("outcome", "rejected")
+			.register(meterRegistry);
+		this.fileTimer = Timer.builder("cargotracker.upload.files")
+			.description("Time taken to import an uploaded handling report file")
+			.register(meterRegistry);
 	}
 
-	@SuppressWarnings("ConstantConditions")
-	@Scheduled(fixedRate = 5_000)
+	@Scheduled(fixedRateString = "${uploadDirectory.scanRate:5000}")
 	public void run() {
-		for (File file : uploadDirectory.listFiles()) {
-			try {
-				parse(file);
-				delete(file);
-				logger.info("Import of {} complete", file.getName());
+		scan();
+	}
+
+	/**
+	 * Claims the files that are ready and submits them to the worker pool.
+	 * @return a future that completes when the submitted imports are done, only meant for
+	 * tests.
+	 */
+	@SuppressWarnings("ConstantConditions")
+	synchronized CompletableFuture<Void> scan() {
+		final List<CompletableFuture<Void>> imports = new ArrayList<>();
+		if (recovered.compareAndSet(false, true)) {
+			imports.addAll(recoverClaims());
+		}
+		final Map<File, Observation> current = new HashMap<>();
+		for (File file : uploadDirectory.listFiles(file -> file.isFile() && !file.getName().endsWith(DONE_MARKER_SUFFIX)
+				&& !file.getName().endsWith(PROGRESS_SUFFIX))) {
+			if (new File(uploadDirectory, file.getName() + DONE_MARKER_SUFFIX).exists()) {
+				imports.add(submit(file));
+				continue;
 			}
-			catch (Exception e) {
-				logger.error("Error parsing uploaded file", e);
-				move(file);
+			final Observation observation = new Observation(file.length(), file.lastModified());
+			if (observation.equals(observations.get(file))) {
+				imports.add(submit(file));
+			}
+			else {
+				current.put(file, observation);
 			}
 		}
+		observations = current;
+		return CompletableFuture.allOf(imports.toArray(CompletableFuture[]::new));
 	}
 
 	/**
-	 * Reads an uploaded file into memory and parses it line by line, returning a list of
-	 * parsed lines. Any unparseable lines will be stored in a new file and saved to the
-	 * parseFailureDirectory.
-	 * @param file the file to parse.
-	 * @throws IOException if reading or writing the file fails.
+	 * Claims a single uploaded file and imports it on the worker pool.
+	 * @param file the uploaded file.
+	 * @return a future that completes when the import is done, or immediately if the
+	 * file was claimed by someone else.
 	 */
-	private void parse(final File file) throws IOException {
-		final List<String> lines = Files.readAllLines(file.toPath());
-		final List<String> rejectedLines = new ArrayList<>();
-		for (String line : lines) {
-			try {
-				String[] columns = parseLine(line);
-				queueAttempt(columns[0], columns[1], columns[2], columns[3], columns[4]);
-			}
-			catch (Exception e) {
-				logger.error("Rejected line: {}", line, e);
-				rejectedLines.add(line);
+	public CompletableFuture<Void> submit(final File file) {
+		final File claimed = claim(file);
+		if (claimed == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		return CompletableFuture.runAsync(() -> process(claimed), taskExecutor);
+	}
+
+	private void process(final File file) {
+		try {
+			parse(file);
+			delete(file);
+			// Only after the file, so that a crash in between can't lead to it being imported again from the start
+			Files.deleteIfExists(progressFile(file));
+			logger.info("Import of {} complete", uploadedName(file));
+		}
+		catch (Exception e) {
+			logger.error("Error parsing uploaded file", e);
+			move(file);
+		}
+		finally {
+			claims.remove(file.toPath());
+		}
+	}
+
+	/**
+	 * Claims an uploaded file for processing by moving it into the processing directory,
+	 * under a name no other claim uses. The move is atomic, so only one scanner can
+	 * succeed for any given file.
+	 * @param file the uploaded file.
+	 * @return the claimed file, or null if the file was claimed by someone else.
+	 */
+	private File claim(final File file) {
+		final Path claimed = processingDirectory.toPath()
+			.resolve(file.getName() + CLAIM_SEPARATOR + nodeId + "-" + UUID.randomUUID());
+		// Registered before the move, so that the recovery never sees it unregistered
+		claims.add(claimed);
+		try {
+			Files.createDirectories(processingDirectory.toPath());
+			Files.move(file.toPath(), claimed, StandardCopyOption.ATOMIC_MOVE);
+			Files.deleteIfExists(new File(uploadDirectory, file.getName() + DONE_MARKER_SUFFIX).toPath());
+			// The progress of an earlier attempt, when a failed file is retried
+			final Path progress = new File(uploadDirectory, file.getName() + PROGRESS_SUFFIX).toPath();
+			if (Files.exists(progress)) {
+				Files.move(progress, progressFile(claimed.toFile()), StandardCopyOption.ATOMIC_MOVE);
 			}
+			return claimed.toFile();
 		}
-		if (!rejectedLines.isEmpty()) {
-			writeRejectedLinesToFile(toRejectedFilename(file), rejectedLines);
+		catch (NoSuchFileException e) {
+			logger.debug("{} was already claimed", file.getName());
+			claims.remove(claimed);
+			return null;
+		}
+		catch (IOException e) {
+			logger.error("Could not claim {}", file.getName(), e);
+			claims.remove(claimed);
+			return null;
 		}
 	}
 
-	private String toRejectedFilename(final File file) {
-		return file.getName() + ".reject";
+	/**
+	 * Imports the files this node had claimed before it stopped, and that are still in
+	 * the processing directory, after the lines they had published.
+	 * @return futures that complete when the imports are done.
+	 */
+	@SuppressWarnings("ConstantConditions")
+	private List<CompletableFuture<Void>> recoverClaims() {
+		final List<CompletableFuture<Void>> imports = new ArrayList<>();
+		final File[] files = processingDirectory.listFiles(File::isFile);
+		if (files == null) {
+			return imports;
+		}
+		for (File file : files) {
+			if (isClaimedByThisNode(file) && claims.add(file.toPath())) {
+				logger.warn("Importing {} again, it was claimed but not imported before", uploadedName(file));
+				imports.add(CompletableFuture.runAsync(() -> process(file), taskExecutor));
+			}
+		}
+		return imports;
+	}
+
+	private boolean isClaimedByThisNode(final File file) {
+		final String owner = CLAIM_SEPARATOR + nodeId + "-";
+		final int separator = file.getName().lastIndexOf(CLAIM_SEPARATOR);
+		// Followed by a random id, so that a node id isn't taken for a prefix of another
+		return separator >= 0 && file.getName().startsWith(owner, separator)
+				&& file.getName().length() - separator - owner.length() == UUID_LENGTH;
 	}
 
-	private void writeRejectedLinesToFile(final String filename, final List<String> rejectedLines) throws IOException {
-		Files.write(new File(parseFailureDirectory, filename).toPath(), rejectedLines, StandardOpenOption.CREATE,
-				StandardOpenOption.APPEND);
+	/**
+	 * @param file a claimed file.
+	 * @return the name the file was uploaded with.
+	 */
+	private static String uploadedName(final File file) {
+		final int separator = file.getName().lastIndexOf(CLAIM_SEPARATOR);
+		return separator < 0 ? file.getName() : file.getName().substring(0, separator);
 	}
 
-	private String[] parseLine(final String line) {
-		final String[] columns = line.split("\\s{2,}");
-		if (columns.length == 5) {
-			return new String[] { columns[0], columns[1], columns[2], columns[3], columns[4] };
+	private static String hostName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
 		}
-		else if (columns.length == 4) {
-			return new String[] { columns[0], columns[1], "", columns[2], columns[3] };
+		catch (UnknownHostException e) {
+			return "localhost";
 		}
-		else {
-			throw new IllegalArgumentException("Wrong number of columns on line: %s, must be 4 or 5".formatted(line));
+	}
+
+	/**
+	 * Streams an uploaded file through the parser, publishing the parsed registration
+	 * attempts in chunks of at most {@code chunkSize} attempts. Any unparseable lines are
+	 * appended to a new file in the parseFailureDirectory as they are encountered.
+	 * @param file the file to parse.
+	 * @throws IOException if reading or writing the file fails.
+	 */
+	private void parse(final File file) throws IOException {
+		final long start = System.nanoTime();
+		final FileImport fileImport = new FileImport(file, readProgress(file));
+		if (fileImport.published > 0) {
+			logger.info("Resuming import of {} after {} published lines", uploadedName(file), fileImport.published);
+		}
+		try {
+			parser.parse(file.toPath(), fileImport);
+			fileImport.publish();
 		}
+		finally {
+			fileImport.close();
+		}
+		final long elapsed = System.nanoTime() - start;
+		final long lineCount = fileImport.acceptedCount + fileImport.rejectedCount;
+		fileTimer.record(elapsed, TimeUnit.NANOSECONDS);
+		logger.info("Read {} lines from {} ({} rejected) in {} ms, {} lines/s", lineCount, uploadedName(file),
+				fileImport.rejectedCount, TimeUnit.NANOSECONDS.toMillis(elapsed),
+				elapsed == 0 ? lineCount : lineCount * TimeUnit.SECONDS.toNanos(1) / elapsed);
+	}
+
+	private static Path progressFile(final File file) {
+		return file.toPath().resolveSibling(file.getName() + PROGRESS_SUFFIX);
 	}
 
-	private void queueAttempt(String completionTimeStr, String trackingIdStr, String voyageNumberStr,
-			String unLocodeStr, String eventTypeStr) throws Exception {
+	/**
+	 * @param file a claimed file.
+	 * @return the number of lines of the file that have already been published.
+	 */
+	private static long readProgress(final File file) throws IOException {
+		final Path progress = progressFile(file);
+		if (!Files.exists(progress)) {
+			return 0;
+		}
 		try {
-			final Instant date = parseDate(completionTimeStr);
-			final TrackingId trackingId = parseTrackingId(trackingIdStr);
-			final VoyageNumber voyageNumber = parseVoyageNumber(voyageNumberStr);
-			final HandlingEvent.Type eventType = parseEventType(eventTypeStr);
-			final UnLocode unLocode = parseUnLocode(unLocodeStr);
-			final HandlingEventRegistrationAttempt attempt = new HandlingEventRegistrationAttempt(Instant.now(), date,
-					trackingId, voyageNumber, eventType, unLocode);
-			applicationEvents.receivedHandlingEventRegistrationAttempt(attempt);
+			return Long.parseLong(Files.readString(progress, StandardCharsets.UTF_8).trim());
 		}
-		catch (IllegalArgumentException e) {
-			throw new Exception("Error parsing HandlingReport", e);
+		catch (NumberFormatException e) {
+			throw new IOException("Unreadable progress of " + uploadedName(file), e);
 		}
 	}
 
+	/**
+	 * Records the number of lines of a file that have been published, replacing the
+	 * previous count atomically.
+	 */
+	private static void writeProgress(final File file, final long lines) throws IOException {
+		final Path progress = progressFile(file);
+		final Path temporary = progress.resolveSibling(progress.getFileName() + ".tmp");
+		Files.writeString(temporary, Long.toString(lines), StandardCharsets.UTF_8);
+		Files.move(temporary, progress, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private String toRejectedFilename(final File file) {
+		return uploadedName(file) + ".reject";
+	}
+
+	private BufferedWriter openRejectedFile(final String filename) throws IOException {
+		return Files.newBufferedWriter(new File(parseFailureDirectory, filename).toPath(), StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+
 	private void delete(final File file) {
 		if (!file.delete()) {
-			logger.error("Could not delete file: {}", file.getName());
+			logger.error("Could not delete file: {}", uploadedName(file));
 		}
 	}
 
 	private void move(final File file) {
-		final File destination = new File(parseFailureDirectory, file.getName());
+		final File destination = new File(parseFailureDirectory, uploadedName(file));
 		final boolean result = file.renameTo(destination);
 		if (!result) {
-			logger.error("Could not move {} to {}", file.getName(), destination.getAbsolutePath());
+			logger.error("Could not move {} to {}", uploadedName(file), destination.getAbsolutePath());
+		}
+		// Keeps the published lines with the file, so that a retry doesn't publish them again
+		final File progress = progressFile(file).toFile();
+		if (progress.exists()
+				&& !progress.renameTo(new File(parseFailureDirectory, uploadedName(file) + PROGRESS_SUFFIX))) {
+			logger.error("Could not move the progress of {} to {}", uploadedName(file),
+					parseFailureDirectory.getAbsolutePath());
 		}
 	}
 
+	private record Observation(long size, long lastModified) {
+
+	}
+
 	@Override
 	public void afterPropertiesSet() throws Exception {
 		if (uploadDirectory.equals(parseFailureDirectory)) {
 			throw new Exception("Upload and parse failed directories must not be the same directory: %s"
 				.formatted(uploadDirectory));
 		}
-		for (File dir : Arrays.asList(uploadDirectory, parseFailureDirectory)) {
+		for (File dir : Arrays.asList(uploadDirectory, processingDirectory, parseFailureDirectory)) {
 			if (!(dir.exists() || dir.mkdirs())) {
 				throw new IllegalStateException("Failed to create dir: " + dir);
 			}
 		}
 	}
 
+	/**
+	 * Import state of a single file: the current chunk of attempts, line counts and the
+	 * lazily opened reject file.
+	 */
+	private final class FileImport implements HandlingReportFileParser.Handler {
+
+		private final File file;
+
+		private final List<HandlingEventRegistrationAttempt> chunk = new ArrayList<>(chunkSize);
+
+		/**
+		 * Lines published by an earlier import of the file, which are skipped.
+		 */
+		private final long published;
+
+		private long lines;
+
+		private long acceptedCount;
+
+		private long rejectedCount;
+
+		private BufferedWriter rejectWriter;
+
+		FileImport(final File file, final long published) {
+			this.file = file;
+			this.published = published;
+		}
+
+		@Override
+		public void onAttempt(final HandlingEventRegistrationAttempt attempt) throws IOException {
+			if (++lines <= published) {
+				return;
+			}
+			chunk.add(attempt);
+			acceptedCount++;
+			acceptedLines.increment();
+			if (chunk.size() >= chunkSize) {
+				publish();
+				logger.info("Import of {} in progress: {} lines read, {} rejected", uploadedName(file),
+						acceptedCount + rejectedCount, rejectedCount);
+			}
+		}
+
+		@Override
+		public void onRejectedLine(final String line, final Exception cause) throws IOException {
+			if (++lines <= published) {
+				return;
+			}
+			logger.error("Rejected line: {}", line, cause);
+			if (rejectWriter == null) {
+				rejectWriter = openRejectedFile(toRejectedFilename(file));
+			}
+			rejectWriter.write(line);
+			rejectWriter.newLine();
+			rejectedCount++;
+			rejectedLines.increment();
+		}
+
+		/**
+		 * Publishes the current chunk, and records that the lines read so far have been
+		 * published.
+		 */
+		void publish() throws IOException {
+			if (chunk.isEmpty()) {
+				return;
+			}
+			applicationEvents.receivedHandlingEventRegistrationAttempts(List.copyOf(chunk));
+			chunk.clear();
+			writeProgress(file, lines);
+		}
+
+		void close() throws IOException {
+			if (rejectWriter != null) {
+				rejectWriter.close();
+			}
+		}
+
+	}
+
 }
@@ -0,0 +1,189 @@
+package lol.maki.cargotracker.interfaces.handling.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static lol.maki.cargotracker.interfaces.handling.file.UploadDirectoryScanner.DONE_MARKER_SUFFIX;
+
+/**
+ * Watches the upload directory and submits files to the {@link UploadDirectoryScanner} as
+ * soon as they are completely written, instead of waiting for the next periodic scan.
+ * <p/>
+ * A file is considered completely written when a {@code <name>.done} marker appears next
+ * to it, or when its size has not changed for the configured quiet period.
+ */
+@Component
+@ConditionalOnProperty(name = "uploadDirectory.watch", havingValue = "true")
+public class UploadDirectoryWatcher implements SmartLifecycle {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private final Path uploadDirectory;
+
+	private final Duration quietPeriod;
+
+	private final UploadDirectoryScanner scanner;
+
+	/**
+	 * Last observed size of files that are waiting to become stable.
+	 */
+	private final Map<Path, Long> pending = new ConcurrentHashMap<>();
+
+	private volatile WatchService watchService;
+
+	private volatile ScheduledExecutorService stabilityChecker;
+
+	private volatile boolean running;
+
+	public UploadDirectoryWatcher(@Value("${uploadDirectory}") File uploadDirectory,
+			@Value("${uploadDirectory.watch.quietPeriod:50ms}") Duration quietPeriod, UploadDirectoryScanner scanner) {
+		this.uploadDirectory = uploadDirectory.toPath();
+		this.quietPeriod = quietPeriod;
+		this.scanner = scanner;
+	}
+
+	@Override
+	public void start() {
+		try {
+			Files.createDirectories(uploadDirectory);
+			watchService = FileSystems.getDefault().newWatchService();
+			uploadDirectory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to watch " + uploadDirectory, e);
+		}
+		stabilityChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "upload-stability-checker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		final Thread watcher = new Thread(this::watch, "upload-watcher");
+		watcher.setDaemon(true);
+		running = true;
+		watcher.start();
+		logger.info("Watching {} for uploaded files", uploadDirectory);
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		try {
+			watchService.close();
+		}
+		catch (IOException e) {
+			logger.warn("Failed to close watch service", e);
+		}
+		stabilityChecker.shutdownNow();
+		pending.clear();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	private void watch() {
+		while (running) {
+			final WatchKey key;
+			try {
+				key = watchService.take();
+			}
+			catch (InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (event.kind() == OVERFLOW) {
+					logger.warn("Missed upload directory events, relying on the next sweep");
+					continue;
+				}
+				onChange(uploadDirectory.resolve((Path) event.context()));
+			}
+			key.reset();
+		}
+	}
+
+	private void onChange(final Path path) {
+		final String name = path.getFileName().toString();
+		if (name.endsWith(DONE_MARKER_SUFFIX)) {
+			final Path file = path.resolveSibling(name.substring(0, name.length() - DONE_MARKER_SUFFIX.length()));
+			if (Files.isRegularFile(file)) {
+				ready(file);
+			}
+		}
+		else if (Files.isRegularFile(path)) {
+			if (Files.exists(path.resolveSibling(name + DONE_MARKER_SUFFIX))) {
+				ready(path);
+			}
+			else if (pending.putIfAbsent(path, sizeOf(path)) == null) {
+				scheduleStabilityCheck(path);
+			}
+		}
+	}
+
+	private void scheduleStabilityCheck(final Path path) {
+		stabilityChecker.schedule(() -> checkStability(path), quietPeriod.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	private void checkStability(final Path path) {
+		if (!pending.containsKey(path)) {
+			return;
+		}
+		final long size = sizeOf(path);
+		if (size < 0) {
+			// Claimed by a sweep or removed by the producer
+			pending.remove(path);
+			return;
+		}
+		final Long previous = pending.put(path, size);
+		if (previous != null && previous == size) {
+			ready(path);
+		}
+		else {
+			scheduleStabilityCheck(path);
+		}
+	}
+
+	private void ready(final Path path) {
+		pending.remove(path);
+		scanner.submit(path.toFile());
+	}
+
+	private static long sizeOf(final Path path) {
+		try {
+			return Files.size(path);
+		}
+		catch (NoSuchFileException e) {
+			return -1;
+		}
+		catch (IOException e) {
+			logger.warn("Could not read size of {}", path, e);
+			return -1;
+		}
+	}
+
+}
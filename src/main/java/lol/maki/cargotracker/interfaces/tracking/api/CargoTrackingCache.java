@@ -0,0 +1,93 @@
+package lol.maki.cargotracker.interfaces.tracking.api;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lol.maki.cargotracker.application.CargoDeliveryBroadcast;
+import lol.maki.cargotracker.application.CargoDeliveryUpdated;
+import lol.maki.cargotracker.domain.model.cargo.DeliveryVersion;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Materialized tracking projections, keyed by tracking id and then by locale.
+ * <p>
+ * All projections of a cargo are dropped together once the delivery of the cargo has
+ * been updated, and are rebuilt on the next request. The node that updated the cargo
+ * drops them when its {@link CargoDeliveryUpdated} event has been committed, and every
+ * node drops them again when the {@link CargoDeliveryBroadcast} event arrives. A
+ * projection that is being built while the cargo is updated ends up in the dropped map,
+ * so a stale projection is never served after the invalidation.
+ * <p>
+ * A hit is served from memory without reading the database. Each projection carries the
+ * {@link DeliveryVersion} read when it was built, for the ETag of the response. A node
+ * that misses a broadcast, for example while it is disconnected from the broker, serves
+ * a stale projection until it expires, see {@code cargoTracking.cache.spec}. No entry is
+ * kept for a tracking id whose cargo doesn't exist.
+ */
+@Component
+public class CargoTrackingCache {
+
+	private final Cache<TrackingId, Map<Locale, Projection>> cache;
+
+	public CargoTrackingCache(@Value("${cargoTracking.cache.spec:maximumSize=10000,recordStats}") String spec,
+			MeterRegistry meterRegistry) {
+		this.cache = Caffeine.from(spec).build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "cargoTracking");
+	}
+
+	/**
+	 * @param trackingId tracking id
+	 * @param locale locale the projection is formatted for
+	 * @param loader builds the projection on a miss, may return null for unknown cargo
+	 * @return The projection, or null if the loader returned null.
+	 */
+	Projection get(TrackingId trackingId, Locale locale, Supplier<Projection> loader) {
+		final Projection projection = cache.get(trackingId, key -> new ConcurrentHashMap<>())
+			.computeIfAbsent(locale, key -> loader.get());
+		if (projection == null) {
+			// The cargo doesn't exist (anymore), so don't keep an empty entry for it
+			cache.asMap()
+				.computeIfPresent(trackingId, (key, projections) -> projections.isEmpty() ? null : projections);
+		}
+		return projection;
+	}
+
+	public void invalidate(TrackingId trackingId) {
+		cache.invalidate(trackingId);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCargoDeliveryUpdated(CargoDeliveryUpdated event) {
+		invalidate(event.trackingId());
+	}
+
+	/**
+	 * Runs before the other listeners, so that the ones that push the update to clients
+	 * build fresh projections.
+	 */
+	@EventListener
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	public void onCargoDeliveryBroadcast(CargoDeliveryBroadcast event) {
+		invalidate(event.trackingId());
+	}
+
+	/**
+	 * Tracking information of a cargo, and the delivery version it was built from.
+	 */
+	record Projection(DeliveryVersion version, CargoTrackingDTO cargoTracking) {
+
+	}
+
+}
@@ -1,52 +1,86 @@
 package lol.maki.cargotracker.interfaces.tracking.api;
 
 import lol.maki.cargotracker.domain.model.cargo.CargoRepository;
+import lol.maki.cargotracker.domain.model.cargo.DeliveryVersion;
 import lol.maki.cargotracker.domain.model.cargo.TrackingId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import lol.maki.cargotracker.domain.model.cargo.Cargo;
 import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
 import lol.maki.cargotracker.domain.model.handling.HandlingEventRepository;
 
 import java.lang.invoke.MethodHandles;
+import java.time.Instant;
 import java.util.List;
 import java.util.Locale;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 
 @RestController
 public class CargoTrackingRestController {
 
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+	private static final int MAX_STREAMED_CARGOS = 100;
+
 	private final CargoRepository cargoRepository;
 
 	private final HandlingEventRepository handlingEventRepository;
 
 	private final MessageSource messageSource;
 
+	private final CargoTrackingCache cargoTrackingCache;
+
+	private final CargoTrackingStream cargoTrackingStream;
+
 	public CargoTrackingRestController(CargoRepository cargoRepository, HandlingEventRepository handlingEventRepository,
-			MessageSource messageSource) {
+			MessageSource messageSource, CargoTrackingCache cargoTrackingCache,
+			CargoTrackingStream cargoTrackingStream) {
 		this.cargoRepository = cargoRepository;
 		this.handlingEventRepository = handlingEventRepository;
 		this.messageSource = messageSource;
+		this.cargoTrackingCache = cargoTrackingCache;
+		this.cargoTrackingStream = cargoTrackingStream;
 	}
 
+	/**
+	 * Returns the tracking information of a cargo. The response carries a strong ETag and
+	 * a Last-Modified header derived from the {@link DeliveryVersion} of the cargo. Cached
+	 * tracking information is served, or answered with 304 Not Modified for a conditional
+	 * request, without reading the database. Only on a miss is the version read, together
+	 * with the cargo and its handling history.
+	 */
 	@GetMapping(value = "/api/track/{trackingId}", produces = APPLICATION_JSON_VALUE)
-	public ResponseEntity<CargoTrackingDTO> trackCargo(@PathVariable TrackingId trackingId, Locale locale) {
+	public ResponseEntity<CargoTrackingDTO> trackCargo(@PathVariable TrackingId trackingId, Locale locale,
+			WebRequest webRequest) {
 		try {
-			Cargo cargo = cargoRepository.find(trackingId);
-			if (cargo == null) {
+			final CargoTrackingCache.Projection projection = cargoTrackingCache.get(trackingId, locale,
+					() -> loadProjection(trackingId, locale));
+			if (projection == null) {
 				return ResponseEntity.notFound().build();
 			}
-			final List<HandlingEvent> handlingEvents = handlingEventRepository.lookupHandlingHistoryOfCargo(trackingId)
-				.distinctEventsByCompletionTime();
-			return ResponseEntity.ok(CargoTrackingDTOConverter.convert(cargo, handlingEvents, messageSource, locale));
+			final String eTag = eTag(projection.version(), locale);
+			final Instant lastModified = projection.version().lastModified();
+			if (webRequest.checkNotModified(eTag, lastModified.toEpochMilli())) {
+				return null;
+			}
+			return ResponseEntity.ok()
+				.eTag(eTag)
+				.lastModified(lastModified)
+				.cacheControl(CacheControl.noCache())
+				.varyBy(HttpHeaders.ACCEPT_LANGUAGE)
+				.body(projection.cargoTracking());
 		}
 		catch (Exception e) {
 			log.error("Unexpected error in trackCargo endpoint", e);
@@ -54,4 +88,58 @@ public class CargoTrackingRestController {
 		}
 	}
 
+	/**
+	 * Streams the tracking information of a cargo as server-sent events, instead of
+	 * polling {@link #trackCargo}. The current information is sent first, then again
+	 * whenever the delivery of the cargo is updated.
+	 */
+	@GetMapping(value = "/api/track/{trackingId}/events", produces = TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> streamCargoTracking(@PathVariable TrackingId trackingId, Locale locale) {
+		return streamCargoTrackings(List.of(trackingId), locale);
+	}
+
+	/**
+	 * Streams the tracking information of several cargos as server-sent events on a
+	 * single connection. Unknown tracking ids are ignored.
+	 */
+	@GetMapping(value = "/api/track/events", produces = TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> streamCargoTrackings(@RequestParam("trackingId") List<TrackingId> trackingIds,
+			Locale locale) {
+		if (trackingIds.isEmpty() || trackingIds.size() > MAX_STREAMED_CARGOS) {
+			return ResponseEntity.badRequest().build();
+		}
+		final SseEmitter emitter = cargoTrackingStream.subscribe(trackingIds, locale);
+		if (emitter == null) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(emitter);
+	}
+
+	/**
+	 * The representation depends on the locale as well as on the delivery, so the locale
+	 * is part of the ETag.
+	 */
+	static String eTag(DeliveryVersion version, Locale locale) {
+		final Instant calculatedAt = version.calculatedAt();
+		return "\"%x.%x-%s-%s\"".formatted(calculatedAt.getEpochSecond(), calculatedAt.getNano(),
+				version.lastHandlingEventId() == null ? "0" : Long.toHexString(version.lastHandlingEventId()),
+				locale.toLanguageTag());
+	}
+
+	private CargoTrackingCache.Projection loadProjection(TrackingId trackingId, Locale locale) {
+		// Read first, so that the version is never newer than the tracking information
+		final DeliveryVersion version = cargoRepository.findDeliveryVersion(trackingId);
+		if (version == null) {
+			return null;
+		}
+		final Cargo cargo = cargoRepository.findWithItinerary(trackingId);
+		if (cargo == null) {
+			return null;
+		}
+		final List<HandlingEvent> handlingEvents = handlingEventRepository
+			.lookupDistinctHandlingEventsOfCargo(trackingId);
+		return new CargoTrackingCache.Projection(version,
+				CargoTrackingDTOConverter.convert(cargo, handlingEvents, messageSource, locale));
+	}
+
 }
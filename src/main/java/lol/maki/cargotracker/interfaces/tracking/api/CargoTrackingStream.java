@@ -0,0 +1,266 @@
+package lol.maki.cargotracker.interfaces.tracking.api;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lol.maki.cargotracker.application.CargoDeliveryBroadcast;
+import lol.maki.cargotracker.domain.model.cargo.Cargo;
+import lol.maki.cargotracker.domain.model.cargo.CargoRepository;
+import lol.maki.cargotracker.domain.model.cargo.DeliveryVersion;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.domain.model.handling.HandlingEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the tracking information of cargos to subscribed clients as server-sent events.
+ * <p>
+ * A single listener receives every {@link CargoDeliveryBroadcast} event, which the
+ * message broker delivers to every node once a delivery has been updated on any node, and
+ * fans it out in memory to the subscribers of the cargo on this node. The tracking
+ * information is built once per locale, through the {@link CargoTrackingCache}, on a
+ * small pool of threads, so neither the transaction that updated the delivery nor a
+ * cargo without subscribers pays for it.
+ * <p>
+ * An idle subscription only holds an asynchronous request, no thread. It is completed
+ * after a timeout, and a client that reconnects receives the current tracking
+ * information again, so no update is missed.
+ */
+@Component
+public class CargoTrackingStream implements SmartLifecycle {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	static final String EVENT_NAME = "tracking";
+
+	private final CargoRepository cargoRepository;
+
+	private final HandlingEventRepository handlingEventRepository;
+
+	private final MessageSource messageSource;
+
+	private final CargoTrackingCache cargoTrackingCache;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Duration timeout;
+
+	private final int threads;
+
+	private final Map<TrackingId, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+	private final AtomicInteger subscribers = new AtomicInteger();
+
+	private volatile ExecutorService executor;
+
+	private volatile boolean running;
+
+	public CargoTrackingStream(CargoRepository cargoRepository, HandlingEventRepository handlingEventRepository,
+			MessageSource messageSource, CargoTrackingCache cargoTrackingCache,
+			PlatformTransactionManager transactionManager,
+			@Value("${cargoTracking.stream.timeout:30m}") Duration timeout,
+			@Value("${cargoTracking.stream.threads:2}") int threads, MeterRegistry meterRegistry) {
+		this.cargoRepository = cargoRepository;
+		this.handlingEventRepository = handlingEventRepository;
+		this.messageSource = messageSource;
+		this.cargoTrackingCache = cargoTrackingCache;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.timeout = timeout;
+		this.threads = threads;
+		Gauge.builder("cargotracker.tracking.subscribers", subscribers, AtomicInteger::get)
+			.description("Clients subscribed to cargo tracking updates")
+			.register(meterRegistry);
+	}
+
+	/**
+	 * Subscribes to the tracking information of cargos. The current information of each
+	 * cargo is sent right away, then again whenever its delivery is updated.
+	 * @param trackingIds tracking ids
+	 * @param locale locale the tracking information is formatted for
+	 * @return The emitter of the events, or {@code null} if none of the cargos exists.
+	 */
+	public SseEmitter subscribe(Collection<TrackingId> trackingIds, Locale locale) {
+		final Subscription subscription = new Subscription(new SseEmitter(timeout.toMillis()), locale,
+				Set.copyOf(trackingIds));
+		// Registered before reading the current information, so no update is missed
+		for (TrackingId trackingId : subscription.trackingIds) {
+			subscriptions.compute(trackingId, (key, cargoSubscriptions) -> {
+				final Set<Subscription> updated = cargoSubscriptions == null ? ConcurrentHashMap.newKeySet()
+						: cargoSubscriptions;
+				updated.add(subscription);
+				return updated;
+			});
+		}
+		subscribers.incrementAndGet();
+		final SseEmitter emitter = subscription.emitter;
+		emitter.onCompletion(() -> unsubscribe(subscription));
+		emitter.onTimeout(emitter::complete);
+		emitter.onError(e -> unsubscribe(subscription));
+
+		boolean found = false;
+		for (TrackingId trackingId : subscription.trackingIds) {
+			final CargoTrackingDTO cargoTracking = cargoTracking(trackingId, locale);
+			if (cargoTracking != null) {
+				subscription.send(cargoTracking);
+				found = true;
+			}
+		}
+		if (!found) {
+			unsubscribe(subscription);
+			return null;
+		}
+		return emitter;
+	}
+
+	private void unsubscribe(Subscription subscription) {
+		if (!subscription.active.compareAndSet(true, false)) {
+			return;
+		}
+		for (TrackingId trackingId : subscription.trackingIds) {
+			subscriptions.computeIfPresent(trackingId, (key, cargoSubscriptions) -> {
+				cargoSubscriptions.remove(subscription);
+				return cargoSubscriptions.isEmpty() ? null : cargoSubscriptions;
+			});
+		}
+		subscribers.decrementAndGet();
+	}
+
+	@EventListener
+	public void onCargoDeliveryBroadcast(CargoDeliveryBroadcast event) {
+		if (!running || !subscriptions.containsKey(event.trackingId())) {
+			return;
+		}
+		try {
+			executor.execute(() -> publish(event.trackingId()));
+		}
+		catch (RejectedExecutionException e) {
+			// Stopped concurrently
+			logger.debug("Dropping the tracking update of {}", event.trackingId());
+		}
+	}
+
+	private void publish(TrackingId trackingId) {
+		final Set<Subscription> cargoSubscriptions = subscriptions.get(trackingId);
+		if (cargoSubscriptions == null) {
+			return;
+		}
+		final Map<Locale, CargoTrackingDTO> cargoTrackings = new HashMap<>();
+		for (Subscription subscription : cargoSubscriptions) {
+			final CargoTrackingDTO cargoTracking = cargoTrackings.computeIfAbsent(subscription.locale,
+					locale -> cargoTracking(trackingId, locale));
+			if (cargoTracking != null) {
+				subscription.send(cargoTracking);
+			}
+		}
+	}
+
+	/**
+	 * The database is only read on a miss. The cache drops the projections of an updated
+	 * cargo before this stream receives the update, so the update is always a miss.
+	 */
+	private CargoTrackingDTO cargoTracking(TrackingId trackingId, Locale locale) {
+		final CargoTrackingCache.Projection projection = cargoTrackingCache.get(trackingId, locale,
+				() -> transactionTemplate.execute(status -> {
+					final DeliveryVersion version = cargoRepository.findDeliveryVersion(trackingId);
+					if (version == null) {
+						return null;
+					}
+					final Cargo cargo = cargoRepository.findWithItinerary(trackingId);
+					final List<HandlingEvent> handlingEvents = handlingEventRepository
+						.lookupDistinctHandlingEventsOfCargo(trackingId);
+					return new CargoTrackingCache.Projection(version,
+							CargoTrackingDTOConverter.convert(cargo, handlingEvents, messageSource, locale));
+				}));
+		return projection == null ? null : projection.cargoTracking();
+	}
+
+	@Override
+	public void start() {
+		executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("cargo-tracking-stream-"));
+		running = true;
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		executor.shutdown();
+		try {
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		subscriptions.values()
+			.stream()
+			.flatMap(Set::stream)
+			.distinct()
+			.toList()
+			.forEach(subscription -> subscription.emitter.complete());
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	private static final class Subscription {
+
+		private final SseEmitter emitter;
+
+		private final Locale locale;
+
+		private final Set<TrackingId> trackingIds;
+
+		private final AtomicBoolean active = new AtomicBoolean(true);
+
+		Subscription(SseEmitter emitter, Locale locale, Set<TrackingId> trackingIds) {
+			this.emitter = emitter;
+			this.locale = locale;
+			this.trackingIds = trackingIds;
+		}
+
+		void send(CargoTrackingDTO cargoTracking) {
+			try {
+				emitter.send(SseEmitter.event()
+					.id(cargoTracking.trackingId())
+					.name(EVENT_NAME)
+					.data(cargoTracking, MediaType.APPLICATION_JSON));
+			}
+			catch (IOException | IllegalStateException e) {
+				// The client has gone away, or the emitter has completed
+				logger.debug("Failed to send the tracking information of {}", cargoTracking.trackingId(), e);
+				emitter.completeWithError(e);
+			}
+		}
+
+	}
+
+}
@@ -63,11 +63,11 @@ public final class CargoTrackingController {
 	private String onSubmit(TrackCommand command, BindingResult bindingResult, Model model, Locale locale) {
 		this.trackCommandValidator.validate(command, bindingResult);
 		final TrackingId trackingId = new TrackingId(command.getTrackingId());
-		final Cargo cargo = cargoRepository.find(trackingId);
+		final Cargo cargo = cargoRepository.findWithItinerary(trackingId);
 
 		if (cargo != null) {
-			final List<HandlingEvent> handlingEvents = handlingEventRepository.lookupHandlingHistoryOfCargo(trackingId)
-				.distinctEventsByCompletionTime();
+			final List<HandlingEvent> handlingEvents = handlingEventRepository
+				.lookupDistinctHandlingEventsOfCargo(trackingId);
 			model.addAttribute("cargo", new CargoTrackingViewAdapter(cargo, messageSource, locale, handlingEvents));
 		}
 		else {
@@ -10,6 +10,7 @@ import lol.maki.cargotracker.domain.service.RoutingService;
 import lol.maki.cargotracker.infrastructure.sampledata.SampleLocations;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.Instant;
 
@@ -36,7 +37,8 @@ class BookingServiceTest {
 		locationRepository = mock(LocationRepository.class);
 		routingService = mock(RoutingService.class);
 		cargoFactory = new CargoFactory(locationRepository, cargoRepository);
-		bookingService = new BookingService(cargoRepository, locationRepository, routingService, cargoFactory);
+		bookingService = new BookingService(cargoRepository, locationRepository, routingService, cargoFactory,
+				mock(ApplicationEventPublisher.class));
 	}
 
 	@Test
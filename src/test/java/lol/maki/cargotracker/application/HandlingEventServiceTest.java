@@ -16,7 +16,10 @@ import lol.maki.cargotracker.domain.model.handling.HandlingEventFactory;
 import lol.maki.cargotracker.domain.model.voyage.VoyageRepository;
 
 import java.time.Instant;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.*;
 
@@ -61,4 +64,29 @@ class HandlingEventServiceTest {
         verify(applicationEvents, times(1)).cargoWasHandled(isA(HandlingEvent.class));
     }
 
+	@Test
+    void testRegisterEventsResolvesReferencesOncePerBatch() {
+        when(cargoRepository.findAll(anyCollection())).thenReturn(List.of(cargo));
+        when(voyageRepository.findAll(anyCollection())).thenReturn(List.of(SampleVoyages.CM001));
+        when(locationRepository.findAll(anyCollection()))
+            .thenReturn(List.of(SampleLocations.STOCKHOLM, SampleLocations.HAMBURG));
+
+        List<HandlingEventRegistrationAttempt> attempts = List.of(
+                new HandlingEventRegistrationAttempt(Instant.now(), Instant.now(), cargo.trackingId(),
+                        SampleVoyages.CM001.voyageNumber(), HandlingEvent.Type.LOAD, SampleLocations.STOCKHOLM.unLocode()),
+                new HandlingEventRegistrationAttempt(Instant.now(), Instant.now(), cargo.trackingId(), null,
+                        HandlingEvent.Type.CUSTOMS, SampleLocations.HAMBURG.unLocode()),
+                new HandlingEventRegistrationAttempt(Instant.now(), Instant.now(), new TrackingId("XYZ"), null,
+                        HandlingEvent.Type.RECEIVE, SampleLocations.HAMBURG.unLocode()));
+
+        List<HandlingEvent> events = service.registerHandlingEvents(attempts);
+
+        assertThat(events).hasSize(2);
+        verify(cargoRepository, times(1)).findAll(anyCollection());
+        verify(cargoRepository, never()).find(any());
+        verify(handlingEventRepository, times(1)).storeAll(events);
+        verify(handlingEventRepository, never()).store(any());
+        verify(applicationEvents, times(1)).cargosWereHandled(events);
+    }
+
 }
@@ -0,0 +1,160 @@
+package lol.maki.cargotracker.domain.model.cargo;
+
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.domain.model.handling.HandlingHistory;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.RepetitionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static lol.maki.cargotracker.application.util.DateUtils.toDate;
+import static lol.maki.cargotracker.domain.model.handling.HandlingEvent.Type.*;
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.*;
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleVoyages.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that updating the delivery one handling event at a time, with a replay of the
+ * handling history for events that arrive out of order, always gives the same delivery
+ * as deriving it from the complete handling history.
+ */
+class DeliveryDerivationEquivalenceTest {
+
+	private static final TrackingId TRACKING_ID = new TrackingId("ABC123");
+
+	private static final RouteSpecification ROUTE_SPECIFICATION = new RouteSpecification(HONGKONG, HELSINKI,
+			toDate("2009-03-15"));
+
+	private static final Itinerary ITINERARY = new Itinerary(
+			List.of(new Leg(HONGKONG_TO_NEW_YORK, HONGKONG, NEWYORK, toDate("2009-03-02"), toDate("2009-03-05")),
+					new Leg(NEW_YORK_TO_DALLAS, NEWYORK, DALLAS, toDate("2009-03-06"), toDate("2009-03-08")),
+					new Leg(DALLAS_TO_HELSINKI, DALLAS, HELSINKI, toDate("2009-03-09"), toDate("2009-03-12"))));
+
+	@Test
+	void shouldApplyEventsInOrderWithoutReplay() {
+		Cargo cargo = routedCargo();
+		for (HandlingEvent event : expectedEvents(cargo, toDate("2009-03-01"))) {
+			assertThat(cargo.deriveDeliveryProgress(event)).isTrue();
+			assertThat(cargo.delivery().lastEvent).isSameAs(event);
+		}
+		assertThat(cargo.delivery().isUnloadedAtDestination()).isFalse();
+		assertThat(cargo.delivery().transportStatus()).isEqualTo(TransportStatus.CLAIMED);
+	}
+
+	@Test
+	void shouldRequireReplayForEventCompletedBeforeLastEvent() {
+		Cargo cargo = routedCargo();
+		List<HandlingEvent> events = expectedEvents(cargo, toDate("2009-03-01"));
+		cargo.deriveDeliveryProgress(events.get(2));
+		Delivery delivery = cargo.delivery();
+
+		assertThat(cargo.deriveDeliveryProgress(events.get(1))).isFalse();
+		assertThat(cargo.delivery()).isSameAs(delivery);
+	}
+
+	@RepeatedTest(50)
+	void shouldMatchFullDerivationForRandomArrivalOrder(RepetitionInfo repetitionInfo) {
+		Random random = new Random(repetitionInfo.getCurrentRepetition());
+		Cargo incremental = routedCargo();
+		Cargo full = routedCargo();
+
+		List<HandlingEvent> events = randomEvents(full, random);
+		List<HandlingEvent> history = new ArrayList<>();
+		for (HandlingEvent event : events) {
+			history.add(event);
+			full.deriveDeliveryProgress(new HandlingHistory(history));
+			if (!incremental.deriveDeliveryProgress(event)) {
+				incremental.deriveDeliveryProgress(new HandlingHistory(history));
+			}
+			assertSameDelivery(incremental.delivery(), full.delivery());
+		}
+	}
+
+	/**
+	 * A random selection of expected, unexpected and duplicated events with distinct
+	 * completion times, in random arrival order.
+	 */
+	private static List<HandlingEvent> randomEvents(Cargo cargo, Random random) {
+		List<HandlingEvent> candidates = new ArrayList<>(expectedEvents(cargo, toDate("2009-03-01")));
+		Instant registrationTime = Instant.now();
+		candidates
+			.add(new HandlingEvent(cargo, Instant.EPOCH, registrationTime, UNLOAD, TOKYO, NEW_YORK_TO_DALLAS));
+		candidates.add(new HandlingEvent(cargo, Instant.EPOCH, registrationTime, CUSTOMS, NEWYORK));
+		candidates
+			.add(new HandlingEvent(cargo, Instant.EPOCH, registrationTime, LOAD, DALLAS, DALLAS_TO_HELSINKI_ALT));
+
+		List<Integer> slots = new ArrayList<>();
+		for (int i = 0; i < candidates.size() * 2; i++) {
+			slots.add(i);
+		}
+		Collections.shuffle(slots, random);
+
+		List<HandlingEvent> events = new ArrayList<>();
+		for (int i = 0; i < candidates.size(); i++) {
+			if (random.nextInt(4) == 0) {
+				continue;
+			}
+			HandlingEvent candidate = candidates.get(i);
+			Instant completionTime = toDate("2009-03-01").plus(Duration.ofHours(slots.get(i)));
+			HandlingEvent event = copy(candidate, completionTime);
+			events.add(event);
+			if (random.nextInt(5) == 0) {
+				events.add(copy(candidate, completionTime));
+			}
+		}
+		Collections.shuffle(events, random);
+		return events;
+	}
+
+	private static List<HandlingEvent> expectedEvents(Cargo cargo, Instant start) {
+		Instant registrationTime = Instant.now();
+		return List.of(new HandlingEvent(cargo, start, registrationTime, RECEIVE, HONGKONG),
+				new HandlingEvent(cargo, start.plus(Duration.ofDays(1)), registrationTime, LOAD, HONGKONG,
+						HONGKONG_TO_NEW_YORK),
+				new HandlingEvent(cargo, start.plus(Duration.ofDays(4)), registrationTime, UNLOAD, NEWYORK,
+						HONGKONG_TO_NEW_YORK),
+				new HandlingEvent(cargo, start.plus(Duration.ofDays(5)), registrationTime, LOAD, NEWYORK,
+						NEW_YORK_TO_DALLAS),
+				new HandlingEvent(cargo, start.plus(Duration.ofDays(7)), registrationTime, UNLOAD, DALLAS,
+						NEW_YORK_TO_DALLAS),
+				new HandlingEvent(cargo, start.plus(Duration.ofDays(8)), registrationTime, LOAD, DALLAS,
+						DALLAS_TO_HELSINKI),
+				new HandlingEvent(cargo, start.plus(Duration.ofDays(11)), registrationTime, UNLOAD, HELSINKI,
+						DALLAS_TO_HELSINKI),
+				new HandlingEvent(cargo, start.plus(Duration.ofDays(12)), registrationTime, CLAIM, HELSINKI));
+	}
+
+	private static HandlingEvent copy(HandlingEvent event, Instant completionTime) {
+		if (event.type().prohibitsVoyage()) {
+			return new HandlingEvent(event.cargo(), completionTime, event.registrationTime(), event.type(),
+					event.location());
+		}
+		return new HandlingEvent(event.cargo(), completionTime, event.registrationTime(), event.type(),
+				event.location(), event.voyage());
+	}
+
+	private static Cargo routedCargo() {
+		Cargo cargo = new Cargo(TRACKING_ID, ROUTE_SPECIFICATION);
+		cargo.assignToRoute(ITINERARY);
+		return cargo;
+	}
+
+	private static void assertSameDelivery(Delivery actual, Delivery expected) {
+		assertThat(actual.lastEvent).isEqualTo(expected.lastEvent);
+		assertThat(actual.transportStatus()).isEqualTo(expected.transportStatus());
+		assertThat(actual.routingStatus()).isEqualTo(expected.routingStatus());
+		assertThat(actual.isMisdirected()).isEqualTo(expected.isMisdirected());
+		assertThat(actual.isUnloadedAtDestination()).isEqualTo(expected.isUnloadedAtDestination());
+		assertThat(actual.estimatedTimeOfArrival()).isEqualTo(expected.estimatedTimeOfArrival());
+		assertThat(actual.nextExpectedActivity()).isEqualTo(expected.nextExpectedActivity());
+		assertThat(actual.currentVoyage()).isEqualTo(expected.currentVoyage());
+		assertThat(actual.lastKnownLocation()).isEqualTo(expected.lastKnownLocation());
+	}
+
+}
@@ -15,10 +15,17 @@ import lol.maki.cargotracker.infrastructure.persistence.inmemory.LocationReposit
 import lol.maki.cargotracker.infrastructure.persistence.inmemory.VoyageRepositoryInMem;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static lol.maki.cargotracker.domain.model.handling.HandlingEvent.Type;
 import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.*;
@@ -127,4 +134,53 @@ class HandlingEventFactoryTest {
         }
     }
 
+	@Test
+	void testCreateHandlingEventsOfReportWithSeveralCargos() {
+		Cargo other = new Cargo(new TrackingId("DEF"), new RouteSpecification(TOKYO, HELSINKI, Instant.now()));
+		when(cargoRepository.findAll(anyCollection())).thenReturn(List.of(cargo, other));
+		TrackingId unknown = new TrackingId("XYZ");
+		HandlingEventFactory.Report load = new HandlingEventFactory.Report(Instant.ofEpochMilli(100),
+				CM001.voyageNumber(), STOCKHOLM.unLocode(), Type.LOAD);
+		HandlingEventFactory.Report customs = new HandlingEventFactory.Report(Instant.ofEpochMilli(200), null,
+				HELSINKI.unLocode(), Type.CUSTOMS);
+
+		Map<HandlingEventFactory.Report, HandlingEventFactory.Result> results = factory.createHandlingEvents(
+				Instant.now(),
+				List.of(new HandlingEventFactory.Handling(trackingId, load),
+						new HandlingEventFactory.Handling(other.trackingId(), customs),
+						new HandlingEventFactory.Handling(unknown, load),
+						new HandlingEventFactory.Handling(other.trackingId(), load)));
+
+		assertThat(results).containsOnlyKeys(load, customs);
+		HandlingEventFactory.Result loaded = results.get(load);
+		assertThat(loaded.events()).extracting(HandlingEvent::cargo).containsExactly(cargo, other);
+		assertThat(loaded.events()).allSatisfy(event -> {
+			assertThat(event.voyage()).isEqualTo(CM001);
+			assertThat(event.location()).isEqualTo(STOCKHOLM);
+		});
+		assertThat(loaded.errors()).containsOnlyKeys(unknown);
+		assertThat(loaded.errors().get(unknown)).isInstanceOf(UnknownCargoException.class);
+		assertThat(results.get(customs).events()).extracting(HandlingEvent::cargo).containsExactly(other);
+		assertThat(results.get(customs).errors()).isEmpty();
+		verify(cargoRepository, times(1)).findAll(anyCollection());
+		verify(cargoRepository, never()).find(any());
+	}
+
+	@Test
+	void testCreateHandlingEventsOfReportWithUnknownVoyage() {
+		when(cargoRepository.findAll(anyCollection())).thenReturn(List.of(cargo));
+		TrackingId unknown = new TrackingId("XYZ");
+		HandlingEventFactory.Report report = new HandlingEventFactory.Report(Instant.ofEpochMilli(100),
+				new VoyageNumber("XXX"), STOCKHOLM.unLocode(), Type.LOAD);
+
+		HandlingEventFactory.Result result = factory
+			.createHandlingEvents(Instant.now(), List.of(new HandlingEventFactory.Handling(trackingId, report),
+					new HandlingEventFactory.Handling(unknown, report)))
+			.get(report);
+
+		assertThat(result.events()).isEmpty();
+		assertThat(result.errors()).containsOnlyKeys(trackingId, unknown)
+			.allSatisfy((id, e) -> assertThat(e).isInstanceOf(UnknownVoyageException.class));
+	}
+
 }
@@ -0,0 +1,162 @@
+package lol.maki.cargotracker.infrastructure.messaging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lol.maki.cargotracker.application.CargoInspectionService;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class CargoInspectionCoalescerTest {
+
+	private static final TrackingId ABC = new TrackingId("ABC");
+
+	private static final TrackingId XYZ = new TrackingId("XYZ");
+
+	private final CargoInspectionService cargoInspectionService = mock(CargoInspectionService.class);
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private CargoInspectionCoalescer coalescer;
+
+	@AfterEach
+	void tearDown() {
+		if (coalescer.isRunning()) {
+			coalescer.stop();
+		}
+	}
+
+	@Test
+	void shouldInspectEachCargoOncePerWindow() {
+		coalescer = start(Duration.ofMillis(100), Duration.ofSeconds(10));
+
+		List<Runnable> acknowledgements = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Runnable acknowledgement = mock(Runnable.class);
+			acknowledgements.add(acknowledgement);
+			coalescer.submit(ABC, (long) i, acknowledgement);
+		}
+		coalescer.submit(XYZ, 42L, mock(Runnable.class));
+
+		verify(cargoInspectionService, timeout(2000)).inspectCargo(eq(ABC),
+				argThat((Collection<Long> ids) -> List.copyOf(ids).equals(List.of(0L, 1L, 2L, 3L, 4L))));
+		verify(cargoInspectionService, timeout(2000)).inspectCargo(XYZ, 42L);
+		verifyNoMoreInteractions(cargoInspectionService);
+		for (Runnable acknowledgement : acknowledgements) {
+			verify(acknowledgement, timeout(2000)).run();
+		}
+		assertThat(count("coalesced")).isEqualTo(4);
+		assertThat(count("executed")).isEqualTo(2);
+	}
+
+	@Test
+	void shouldInspectWithinMaxDelayWhileMessagesKeepArriving() {
+		coalescer = start(Duration.ofSeconds(30), Duration.ofMillis(100));
+
+		coalescer.submit(ABC, 1L, mock(Runnable.class));
+		coalescer.submit(ABC, 2L, mock(Runnable.class));
+
+		verify(cargoInspectionService, timeout(2000)).inspectCargo(eq(ABC), anyCollection());
+	}
+
+	@Test
+	void shouldReplayHistoryIfAMessageHasNoHandlingEvent() {
+		coalescer = start(Duration.ofMillis(100), Duration.ofSeconds(10));
+
+		coalescer.submit(ABC, 1L, mock(Runnable.class));
+		coalescer.submit(ABC, null, mock(Runnable.class));
+		coalescer.submit(ABC, 2L, mock(Runnable.class));
+
+		verify(cargoInspectionService, timeout(2000)).inspectCargo(ABC);
+		verifyNoMoreInteractions(cargoInspectionService);
+	}
+
+	@Test
+	void shouldInspectPendingCargoOnStop() {
+		coalescer = start(Duration.ofSeconds(30), Duration.ofSeconds(30));
+		Runnable acknowledgement = mock(Runnable.class);
+
+		coalescer.submit(ABC, 1L, acknowledgement);
+		verifyNoInteractions(cargoInspectionService);
+		coalescer.stop();
+
+		verify(cargoInspectionService).inspectCargo(ABC, 1L);
+		verify(acknowledgement).run();
+	}
+
+	@Test
+	void shouldInspectWithoutWindow() {
+		coalescer = start(Duration.ZERO, Duration.ofSeconds(30));
+
+		coalescer.submit(ABC, 1L, mock(Runnable.class));
+		verify(cargoInspectionService, timeout(2000)).inspectCargo(ABC, 1L);
+		coalescer.submit(ABC, null, mock(Runnable.class));
+
+		verify(cargoInspectionService, timeout(2000)).inspectCargo(ABC);
+	}
+
+	@Test
+	void shouldAcknowledgeOnlyAfterInspectionHasSucceeded() {
+		coalescer = start(Duration.ofMillis(10), Duration.ofMillis(100));
+		doThrow(new IllegalStateException("Database unavailable")).doNothing()
+			.when(cargoInspectionService)
+			.inspectCargo(ABC, 1L);
+		Runnable acknowledgement = mock(Runnable.class);
+
+		coalescer.submit(ABC, 1L, acknowledgement);
+
+		verify(cargoInspectionService, timeout(2000)).inspectCargo(ABC, 1L);
+		verify(acknowledgement, never()).run();
+		verify(cargoInspectionService, timeout(2000).times(2)).inspectCargo(ABC, 1L);
+		verify(acknowledgement, timeout(2000)).run();
+		assertThat(count("failed")).isEqualTo(1);
+	}
+
+	@Test
+	void shouldNeverInspectTheSameCargoConcurrently() {
+		coalescer = start(Duration.ofMillis(1), Duration.ofMillis(1), 4);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		doAnswer(invocation -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+			running.decrementAndGet();
+			return null;
+		}).when(cargoInspectionService).inspectCargo(eq(ABC), anyLong());
+
+		for (long i = 0; i < 5; i++) {
+			coalescer.submit(ABC, i, mock(Runnable.class));
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+		}
+
+		verify(cargoInspectionService, timeout(2000).atLeast(2)).inspectCargo(eq(ABC), anyLong());
+		assertThat(maxRunning).hasValue(1);
+	}
+
+	private CargoInspectionCoalescer start(Duration window, Duration maxDelay) {
+		return start(window, maxDelay, 1);
+	}
+
+	private CargoInspectionCoalescer start(Duration window, Duration maxDelay, int lanes) {
+		CargoInspectionCoalescer coalescer = new CargoInspectionCoalescer(cargoInspectionService, window, maxDelay,
+				lanes, meterRegistry);
+		coalescer.start();
+		return coalescer;
+	}
+
+	private double count(String outcome) {
+		return meterRegistry.get("cargotracker.inspections").tag("outcome", outcome).counter().count();
+	}
+
+}
@@ -0,0 +1,135 @@
+package lol.maki.cargotracker.infrastructure.messaging.inmemory;
+
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.application.HandlingEventService;
+import lol.maki.cargotracker.domain.model.cargo.Cargo;
+import lol.maki.cargotracker.domain.model.cargo.RouteSpecification;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import lol.maki.cargotracker.infrastructure.messaging.CargoInspectionCoalescer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.HELSINKI;
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.HONGKONG;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class InMemoryApplicationEventsTest {
+
+	private final HandlingEventService handlingEventService = mock(HandlingEventService.class);
+
+	private final CargoInspectionCoalescer cargoInspectionCoalescer = mock(CargoInspectionCoalescer.class);
+
+	private InMemoryApplicationEvents applicationEvents;
+
+	@AfterEach
+	void tearDown() {
+		if (applicationEvents.isRunning()) {
+			applicationEvents.stop();
+		}
+	}
+
+	@Test
+	void shouldInspectCargoAfterRegistrationOnTheSameLane() throws Exception {
+		start(2, 10);
+		final HandlingEvent event = handlingEvent("ABC123", 42);
+		final List<String> threads = new CopyOnWriteArrayList<>();
+		final CountDownLatch inspected = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			threads.add(Thread.currentThread().getName());
+			applicationEvents.cargoWasHandled(event);
+			return null;
+		}).when(handlingEventService).registerHandlingEvent(any(), eq(new TrackingId("ABC123")), any(), any(), any());
+		doAnswer(invocation -> {
+			threads.add(Thread.currentThread().getName());
+			inspected.countDown();
+			return null;
+		}).when(cargoInspectionCoalescer).submit(new TrackingId("ABC123"), 42L);
+
+		applicationEvents.receivedHandlingEventRegistrationAttempt(attempt("ABC123"));
+
+		assertThat(inspected.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(threads).hasSize(2).allMatch(name -> name.equals(threads.get(0)));
+	}
+
+	@Test
+	void shouldRegisterOneBatchPerLane() {
+		start(2, 10);
+		final List<HandlingEventRegistrationAttempt> attempts = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			attempts.add(attempt("CARGO" + i));
+		}
+
+		applicationEvents.receivedHandlingEventRegistrationAttempts(attempts);
+
+		@SuppressWarnings("unchecked")
+		final ArgumentCaptor<List<HandlingEventRegistrationAttempt>> captor = ArgumentCaptor.forClass(List.class);
+		verify(handlingEventService, timeout(5000).times(2)).registerHandlingEvents(captor.capture());
+		assertThat(captor.getAllValues()).flatMap(batch -> batch).containsExactlyInAnyOrderElementsOf(attempts);
+	}
+
+	@Test
+	void shouldBlockWhenQueueIsFull() throws Exception {
+		start(1, 1);
+		final CountDownLatch registering = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		when(handlingEventService.registerHandlingEvents(anyList())).thenAnswer(invocation -> {
+			registering.countDown();
+			release.await();
+			return List.of();
+		});
+		applicationEvents.receivedHandlingEventRegistrationAttempts(List.of(attempt("A")));
+		assertThat(registering.await(5, TimeUnit.SECONDS)).isTrue();
+		// Fills the queue while the worker is busy
+		applicationEvents.receivedHandlingEventRegistrationAttempts(List.of(attempt("B")));
+
+		final Thread producer = new Thread(
+				() -> applicationEvents.receivedHandlingEventRegistrationAttempts(List.of(attempt("C"))));
+		producer.start();
+		producer.join(200);
+		assertThat(producer.isAlive()).isTrue();
+
+		release.countDown();
+		producer.join(5000);
+		assertThat(producer.isAlive()).isFalse();
+		verify(handlingEventService, timeout(5000).times(3)).registerHandlingEvents(anyList());
+	}
+
+	private void start(int threads, int capacity) {
+		final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		beanFactory.addBean("handlingEventService", handlingEventService);
+		beanFactory.addBean("cargoInspectionCoalescer", cargoInspectionCoalescer);
+		applicationEvents = new InMemoryApplicationEvents(beanFactory.getBeanProvider(HandlingEventService.class),
+				beanFactory.getBeanProvider(CargoInspectionCoalescer.class), threads, capacity);
+		applicationEvents.start();
+	}
+
+	private static HandlingEventRegistrationAttempt attempt(String trackingId) {
+		return new HandlingEventRegistrationAttempt(Instant.now(), Instant.now(), new TrackingId(trackingId), null,
+				HandlingEvent.Type.RECEIVE, new UnLocode("SESTO"));
+	}
+
+	private static HandlingEvent handlingEvent(String trackingId, long id) {
+		final Cargo cargo = new Cargo(new TrackingId(trackingId),
+				new RouteSpecification(HONGKONG, HELSINKI, Instant.now()));
+		final HandlingEvent event = new HandlingEvent(cargo, Instant.now(), Instant.now(), HandlingEvent.Type.RECEIVE,
+				HONGKONG);
+		event.id = id;
+		return event;
+	}
+
+}
@@ -0,0 +1,25 @@
+package lol.maki.cargotracker.infrastructure.messaging.inmemory;
+
+import lol.maki.cargotracker.application.CargoDeliveryBroadcast;
+import lol.maki.cargotracker.application.CargoDeliveryUpdated;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.mockito.Mockito.*;
+
+class InMemoryCargoDeliveryBroadcasterTest {
+
+	private final ApplicationEventPublisher applicationEventPublisher = mock(ApplicationEventPublisher.class);
+
+	private final InMemoryCargoDeliveryBroadcaster broadcaster = new InMemoryCargoDeliveryBroadcaster(
+			applicationEventPublisher);
+
+	@Test
+	void shouldPublishUpdatesLocally() {
+		broadcaster.onCargoDeliveryUpdated(new CargoDeliveryUpdated(new TrackingId("ABC123")));
+
+		verify(applicationEventPublisher).publishEvent(new CargoDeliveryBroadcast(new TrackingId("ABC123")));
+	}
+
+}
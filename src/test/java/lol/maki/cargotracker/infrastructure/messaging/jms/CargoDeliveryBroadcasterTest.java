@@ -0,0 +1,49 @@
+package lol.maki.cargotracker.infrastructure.messaging.jms;
+
+import jakarta.jms.Destination;
+import lol.maki.cargotracker.application.CargoDeliveryBroadcast;
+import lol.maki.cargotracker.application.CargoDeliveryUpdated;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import org.apache.activemq.command.ActiveMQTopic;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jms.UncategorizedJmsException;
+import org.springframework.jms.core.JmsOperations;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CargoDeliveryBroadcasterTest {
+
+	private final JmsOperations jmsOperations = mock(JmsOperations.class);
+
+	private final ApplicationEventPublisher applicationEventPublisher = mock(ApplicationEventPublisher.class);
+
+	private final CargoDeliveryBroadcaster broadcaster = new CargoDeliveryBroadcaster(jmsOperations,
+			applicationEventPublisher);
+
+	@Test
+	void shouldSendUpdatesToTopic() {
+		broadcaster.onCargoDeliveryUpdated(new CargoDeliveryUpdated(new TrackingId("ABC123")));
+
+		verify(jmsOperations).convertAndSend(new ActiveMQTopic(Destinations.CARGO_DELIVERY_UPDATED_TOPIC), "ABC123");
+		verifyNoInteractions(applicationEventPublisher);
+	}
+
+	@Test
+	void shouldPublishUpdatesReceivedFromTopic() {
+		broadcaster.onMessage("ABC123");
+
+		verify(applicationEventPublisher).publishEvent(new CargoDeliveryBroadcast(new TrackingId("ABC123")));
+	}
+
+	@Test
+	void shouldNotFailCommittedUpdateWhenBrokerIsUnavailable() {
+		doThrow(new UncategorizedJmsException("Broker unavailable")).when(jmsOperations)
+			.convertAndSend(any(Destination.class), anyString());
+
+		broadcaster.onCargoDeliveryUpdated(new CargoDeliveryUpdated(new TrackingId("ABC123")));
+	}
+
+}
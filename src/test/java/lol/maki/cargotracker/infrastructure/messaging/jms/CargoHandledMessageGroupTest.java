@@ -0,0 +1,197 @@
+package lol.maki.cargotracker.infrastructure.messaging.jms;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.jms.Message;
+import lol.maki.cargotracker.application.CargoInspectionService;
+import lol.maki.cargotracker.domain.model.cargo.Cargo;
+import lol.maki.cargotracker.domain.model.cargo.RouteSpecification;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.infrastructure.messaging.CargoInspectionCoalescer;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.ActiveMQSession;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.listener.SessionAwareMessageListener;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.HELSINKI;
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.HONGKONG;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Consumes cargo handled messages with concurrent listeners from an embedded broker
+ * through the {@link CargoHandledConsumer} and {@link CargoInspectionCoalescer}, and
+ * checks that each cargo is still inspected in the order its messages were sent, never
+ * concurrently, and that all messages are acknowledged.
+ */
+class CargoHandledMessageGroupTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private static final int CARGOS = 20;
+
+	private static final int EVENTS_PER_CARGO = 50;
+
+	private BrokerService broker;
+
+	private CachingConnectionFactory connectionFactory;
+
+	private DefaultMessageListenerContainer container;
+
+	private CargoInspectionCoalescer coalescer;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		broker = new BrokerService();
+		broker.setBrokerName("message-groups");
+		broker.setPersistent(false);
+		broker.setUseJmx(false);
+		broker.start();
+		broker.waitUntilStarted();
+		// A small prefetch spreads the groups over all consumers
+		connectionFactory = new CachingConnectionFactory(
+				new ActiveMQConnectionFactory("vm://message-groups?create=false&jms.prefetchPolicy.queuePrefetch=1"));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (container != null) {
+			container.shutdown();
+		}
+		if (coalescer != null && coalescer.isRunning()) {
+			coalescer.stop();
+		}
+		connectionFactory.destroy();
+		broker.stop();
+		broker.waitUntilStopped();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 4 })
+	void shouldKeepOrderPerCargoWithConcurrentConsumers(int concurrency) throws Exception {
+		final Map<TrackingId, List<Long>> inspected = new ConcurrentHashMap<>();
+		final Set<TrackingId> inspecting = ConcurrentHashMap.newKeySet();
+		final Set<String> threads = ConcurrentHashMap.newKeySet();
+		final AtomicBoolean overlapping = new AtomicBoolean();
+		final CountDownLatch latch = new CountDownLatch(CARGOS);
+		final CargoInspectionService cargoInspectionService = mock(CargoInspectionService.class);
+		final InspectionRecorder recorder = (trackingId, handlingEventId) -> {
+			if (!inspecting.add(trackingId)) {
+				overlapping.set(true);
+			}
+			inspected.computeIfAbsent(trackingId, key -> Collections.synchronizedList(new ArrayList<>()))
+				.add(handlingEventId);
+			// Simulates the inspection of the cargo
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+			inspecting.remove(trackingId);
+			if (handlingEventId == EVENTS_PER_CARGO - 1) {
+				latch.countDown();
+			}
+		};
+		doAnswer(invocation -> {
+			recorder.record(invocation.getArgument(0), invocation.<Long>getArgument(1));
+			return null;
+		}).when(cargoInspectionService).inspectCargo(any(TrackingId.class), anyLong());
+		doAnswer(invocation -> {
+			final Collection<Long> ids = invocation.getArgument(1);
+			recorder.record(invocation.getArgument(0), Collections.max(ids));
+			return null;
+		}).when(cargoInspectionService).inspectCargo(any(TrackingId.class), anyCollection());
+		coalescer = new CargoInspectionCoalescer(cargoInspectionService, Duration.ofMillis(1),
+				Duration.ofMillis(10), 4, new SimpleMeterRegistry());
+		coalescer.start();
+		final CargoHandledConsumer consumer = new CargoHandledConsumer(coalescer);
+		container = new DefaultMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.setDestinationName(Destinations.CARGO_HANDLED_QUEUE);
+		container.setConcurrency(String.valueOf(concurrency));
+		container.setSessionAcknowledgeMode(ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE);
+		container.setMessageListener((SessionAwareMessageListener<Message>) (message, session) -> {
+			threads.add(Thread.currentThread().getName());
+			consumer.onMessage(message);
+		});
+		container.afterPropertiesSet();
+		container.start();
+
+		final JmsApplicationEventsImpl applicationEvents = new JmsApplicationEventsImpl(
+				new JmsTemplate(connectionFactory));
+		final List<Cargo> cargos = new ArrayList<>();
+		for (int i = 0; i < CARGOS; i++) {
+			cargos.add(new Cargo(new TrackingId("CARGO" + i), new RouteSpecification(HONGKONG, HELSINKI, Instant.now())));
+		}
+		final long start = System.nanoTime();
+		for (int sequence = 0; sequence < EVENTS_PER_CARGO; sequence++) {
+			for (Cargo cargo : cargos) {
+				final HandlingEvent event = new HandlingEvent(cargo, Instant.now(), Instant.now(),
+						HandlingEvent.Type.CUSTOMS, HONGKONG);
+				event.id = sequence;
+				applicationEvents.cargoWasHandled(event);
+			}
+		}
+
+		assertThat(latch.await(60, TimeUnit.SECONDS)).isTrue();
+		final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+		logger.info("Consumed {} messages with {} consumers in {} ms ({} messages/s), {} inspections",
+				CARGOS * EVENTS_PER_CARGO, concurrency, elapsed.toMillis(),
+				CARGOS * EVENTS_PER_CARGO * 1000L / Math.max(1, elapsed.toMillis()),
+				inspected.values().stream().mapToInt(List::size).sum());
+
+		assertThat(inspected).hasSize(CARGOS);
+		inspected.values()
+			.forEach(ids -> assertThat(ids).doesNotHaveDuplicates().isSorted().endsWith(EVENTS_PER_CARGO - 1L));
+		assertThat(overlapping).isFalse();
+		if (concurrency > 1) {
+			assertThat(threads).hasSizeGreaterThan(1);
+		}
+		assertThat(awaitQueueDrained()).isTrue();
+	}
+
+	private boolean awaitQueueDrained() throws Exception {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (System.nanoTime() < deadline) {
+			if (broker.getDestination(new ActiveMQQueue(Destinations.CARGO_HANDLED_QUEUE))
+				.getDestinationStatistics()
+				.getMessages()
+				.getCount() == 0) {
+				return true;
+			}
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+		}
+		return false;
+	}
+
+	@FunctionalInterface
+	private interface InspectionRecorder {
+
+		void record(TrackingId trackingId, long handlingEventId);
+
+	}
+
+}
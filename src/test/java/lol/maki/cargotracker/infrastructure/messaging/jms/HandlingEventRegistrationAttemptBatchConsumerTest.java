@@ -0,0 +1,140 @@
+package lol.maki.cargotracker.infrastructure.messaging.jms;
+
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.application.HandlingEventService;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class HandlingEventRegistrationAttemptBatchConsumerTest {
+
+	private BrokerService broker;
+
+	private JmsTemplate jmsTemplate;
+
+	private HandlingEventService handlingEventService;
+
+	private HandlingEventRegistrationAttemptBatchConsumer consumer;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		startBroker();
+		ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory(
+				"vm://registration-batches?create=false");
+		connectionFactory.setTrustAllPackages(true);
+		jmsTemplate = new JmsTemplate(connectionFactory);
+		jmsTemplate.setReceiveTimeout(5000);
+		handlingEventService = mock(HandlingEventService.class);
+		consumer = new HandlingEventRegistrationAttemptBatchConsumer(handlingEventService, connectionFactory,
+				new StaticListableBeanFactory().getBeanProvider(MessageConverter.class), 10, Duration.ofMillis(500),
+				1);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (consumer.isRunning()) {
+			consumer.stop();
+		}
+		broker.stop();
+		broker.waitUntilStopped();
+	}
+
+	@Test
+	void shouldRegisterAttemptsInBatchesAndRejectPoisonMessages() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			final List<HandlingEventRegistrationAttempt> attempts = new ArrayList<>();
+			for (int j = 0; j < 5; j++) {
+				attempts.add(attempt("ABC" + i + j));
+			}
+			send(attempts);
+		}
+		jmsTemplate.convertAndSend(Destinations.HANDLING_EVENT_REGISTRATION_ATTEMPT_BATCH_QUEUE, "not an attempt");
+
+		consumer.start();
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<HandlingEventRegistrationAttempt>> captor = ArgumentCaptor.forClass(List.class);
+		verify(handlingEventService, timeout(5000).times(3)).registerHandlingEvents(captor.capture());
+		assertThat(captor.getAllValues()).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(10))
+			.flatMap(batch -> batch)
+			.hasSize(25);
+		assertThat(jmsTemplate.receiveAndConvert(Destinations.REJECTED_REGISTRATION_ATTEMPTS_QUEUE))
+			.isEqualTo("not an attempt");
+		verify(handlingEventService, never()).registerHandlingEvent(any(), any(), any(), any(), any());
+	}
+
+	@Test
+	void shouldRegisterOneAtATimeWhenBatchFails() throws Exception {
+		when(handlingEventService.registerHandlingEvents(anyList())).thenThrow(new IllegalStateException("batch"));
+		doThrow(new IllegalStateException("poison")).when(handlingEventService)
+			.registerHandlingEvent(any(), eq(new TrackingId("BAD")), any(), any(), any());
+		send(new ArrayList<>(List.of(attempt("ABC"), attempt("BAD"), attempt("XYZ"))));
+
+		consumer.start();
+
+		verify(handlingEventService, timeout(5000)).registerHandlingEvent(any(), eq(new TrackingId("XYZ")), any(),
+				any(), any());
+		verify(handlingEventService).registerHandlingEvent(any(), eq(new TrackingId("ABC")), any(), any(), any());
+		Object rejected = jmsTemplate.receiveAndConvert(Destinations.REJECTED_REGISTRATION_ATTEMPTS_QUEUE);
+		assertThat(rejected).isInstanceOf(HandlingEventRegistrationAttempt.class)
+			.extracting("trackingId")
+			.isEqualTo(new TrackingId("BAD"));
+		consumer.stop();
+		jmsTemplate.setReceiveTimeout(JmsTemplate.RECEIVE_TIMEOUT_NO_WAIT);
+		assertThat(jmsTemplate.receive(Destinations.HANDLING_EVENT_REGISTRATION_ATTEMPT_BATCH_QUEUE)).isNull();
+	}
+
+	@Test
+	void shouldReconnectAfterBrokerRestart() throws Exception {
+		consumer.start();
+		send(new ArrayList<>(List.of(attempt("ABC"))));
+		verify(handlingEventService, timeout(5000)).registerHandlingEvents(anyList());
+
+		broker.stop();
+		broker.waitUntilStopped();
+		startBroker();
+		send(new ArrayList<>(List.of(attempt("XYZ"))));
+
+		verify(handlingEventService, timeout(10000).times(2)).registerHandlingEvents(anyList());
+		assertThat(consumer.isRunning()).isTrue();
+	}
+
+	private void startBroker() throws Exception {
+		broker = new BrokerService();
+		broker.setBrokerName("registration-batches");
+		broker.setPersistent(false);
+		broker.setUseJmx(false);
+		broker.start();
+		broker.waitUntilStarted();
+	}
+
+	private void send(List<HandlingEventRegistrationAttempt> attempts) {
+		jmsTemplate.convertAndSend(Destinations.HANDLING_EVENT_REGISTRATION_ATTEMPT_BATCH_QUEUE, attempts);
+	}
+
+	private static HandlingEventRegistrationAttempt attempt(String trackingId) {
+		return new HandlingEventRegistrationAttempt(Instant.now(), Instant.now(), new TrackingId(trackingId), null,
+				HandlingEvent.Type.RECEIVE, new UnLocode("SESTO"));
+	}
+
+}
@@ -0,0 +1,119 @@
+package lol.maki.cargotracker.infrastructure.messaging.jms;
+
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import lol.maki.cargotracker.domain.model.voyage.VoyageNumber;
+import lol.maki.cargotracker.infrastructure.persistence.inmemory.LocationRepositoryInMem;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.apache.activemq.command.ActiveMQTextMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class HandlingEventRegistrationAttemptMessageConverterTest {
+
+	private final HandlingEventRegistrationAttemptMessageConverter converter = new HandlingEventRegistrationAttemptMessageConverter(
+			new SimpleMessageConverter(), new LocationRepositoryInMem());
+
+	private Session session;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		session = mock(Session.class);
+		when(session.createBytesMessage()).thenAnswer(invocation -> new ActiveMQBytesMessage());
+		when(session.createTextMessage(anyString())).thenAnswer(invocation -> {
+			ActiveMQTextMessage message = new ActiveMQTextMessage();
+			message.setText(invocation.getArgument(0));
+			return message;
+		});
+	}
+
+	@Test
+	void shouldRoundTripAttempt() throws Exception {
+		HandlingEventRegistrationAttempt attempt = new HandlingEventRegistrationAttempt(
+				Instant.parse("2022-10-30T13:37:01.234Z"), Instant.parse("2022-10-29T13:37:00Z"),
+				new TrackingId("ABC123"), new VoyageNumber("0101"), HandlingEvent.Type.LOAD, new UnLocode("SESTO"));
+
+		Object converted = roundTrip(attempt);
+
+		assertThat(converted).usingRecursiveComparison().isEqualTo(attempt);
+	}
+
+	@Test
+	void shouldRoundTripAttemptsWithoutVoyage() throws Exception {
+		List<HandlingEventRegistrationAttempt> attempts = new ArrayList<>();
+		for (HandlingEvent.Type type : List.of(HandlingEvent.Type.RECEIVE, HandlingEvent.Type.CUSTOMS,
+				HandlingEvent.Type.CLAIM)) {
+			attempts.add(new HandlingEventRegistrationAttempt(Instant.parse("2022-10-30T13:37:00Z"), null,
+					new TrackingId("JKL567"), null, type, new UnLocode("USDAL")));
+		}
+
+		Object converted = roundTrip(attempts);
+
+		assertThat(converted).asList().usingRecursiveFieldByFieldElementComparator().isEqualTo(attempts);
+	}
+
+	@Test
+	void shouldRejectUnknownHandlingEventType() throws Exception {
+		ActiveMQBytesMessage message = new ActiveMQBytesMessage();
+		message.setJMSType(HandlingEventRegistrationAttemptMessageConverter.ATTEMPT_TYPE);
+		message.writeByte((byte) 1);
+		message.writeInt(1);
+		message.writeLong(0);
+		message.writeLong(0);
+		message.writeUTF("ABC123");
+		message.writeUTF("");
+		message.writeByte((byte) HandlingEvent.Type.values().length);
+		message.writeUTF("SESTO");
+		message.reset();
+
+		assertThatThrownBy(() -> converter.fromMessage(message)).isInstanceOf(MessageConversionException.class)
+			.hasMessageContaining("Unknown handling event type");
+	}
+
+	@Test
+	void shouldDelegateOtherPayloads() throws Exception {
+		Message message = converter.toMessage("ABC123", session);
+
+		assertThat(message.getJMSType()).isNull();
+		assertThat(converter.fromMessage(message)).isEqualTo("ABC123");
+	}
+
+	@Test
+	void shouldBeMuchSmallerThanJavaSerialization() throws Exception {
+		HandlingEventRegistrationAttempt attempt = new HandlingEventRegistrationAttempt(Instant.now(), Instant.now(),
+				new TrackingId("ABC123"), new VoyageNumber("0101"), HandlingEvent.Type.LOAD, new UnLocode("SESTO"));
+		ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+			out.writeObject(attempt);
+		}
+
+		ActiveMQBytesMessage message = (ActiveMQBytesMessage) converter.toMessage(attempt, session);
+		message.reset();
+
+		assertThat(message.getBodyLength()).isLessThan(serialized.size() / 5);
+	}
+
+	private Object roundTrip(Object payload) throws Exception {
+		ActiveMQBytesMessage message = (ActiveMQBytesMessage) converter.toMessage(payload, session);
+		// Makes the body readable, as if the message had been received
+		message.reset();
+		return converter.fromMessage(message);
+	}
+
+}
@@ -0,0 +1,101 @@
+package lol.maki.cargotracker.infrastructure.messaging.jms;
+
+import jakarta.jms.Message;
+import jakarta.jms.TextMessage;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jms.UncategorizedJmsException;
+import org.springframework.jms.core.JmsOperations;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.SessionCallback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+	private BrokerService broker;
+
+	private JmsTemplate jmsTemplate;
+
+	private OutboxMessageRepository outboxMessageRepository;
+
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		broker = new BrokerService();
+		broker.setBrokerName("outbox");
+		broker.setPersistent(false);
+		broker.setUseJmx(false);
+		broker.start();
+		broker.waitUntilStarted();
+		jmsTemplate = new JmsTemplate(new ActiveMQConnectionFactory("vm://outbox?create=false"));
+		jmsTemplate.setReceiveTimeout(5000);
+		outboxMessageRepository = mock(OutboxMessageRepository.class);
+		transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		broker.stop();
+		broker.waitUntilStopped();
+	}
+
+	@Test
+	void shouldSendMessagesInBatchesAndDeleteThem() throws Exception {
+		final OutboxMessage handled = message(1L, Destinations.CARGO_HANDLED_QUEUE, "ABC123", "ABC123", 42L);
+		final OutboxMessage misdirected = message(2L, Destinations.MISDIRECTED_CARGO_QUEUE, "ABC123", null, null);
+		final OutboxMessage arrived = message(3L, Destinations.DELIVERED_CARGO_QUEUE, "XYZ", null, null);
+		when(outboxMessageRepository.findOldest(any())).thenReturn(List.of(handled, misdirected),
+				List.of(arrived));
+
+		new OutboxRelay(outboxMessageRepository, jmsTemplate, transactionManager, 2).relay();
+
+		final Message handledMessage = jmsTemplate.receive(Destinations.CARGO_HANDLED_QUEUE);
+		assertThat(((TextMessage) handledMessage).getText()).isEqualTo("ABC123");
+		assertThat(handledMessage.getStringProperty(JmsApplicationEventsImpl.GROUP_ID)).isEqualTo("ABC123");
+		assertThat(handledMessage.getLongProperty(CargoHandledConsumer.HANDLING_EVENT_ID)).isEqualTo(42L);
+		final Message misdirectedMessage = jmsTemplate.receive(Destinations.MISDIRECTED_CARGO_QUEUE);
+		assertThat(((TextMessage) misdirectedMessage).getText()).isEqualTo("ABC123");
+		assertThat(misdirectedMessage.propertyExists(CargoHandledConsumer.HANDLING_EVENT_ID)).isFalse();
+		assertThat(jmsTemplate.receiveAndConvert(Destinations.DELIVERED_CARGO_QUEUE)).isEqualTo("XYZ");
+		// The second batch isn't full, so the outbox is drained
+		verify(outboxMessageRepository, times(2)).findOldest(any());
+		verify(outboxMessageRepository).deleteSent(List.of(1L, 2L));
+		verify(outboxMessageRepository).deleteSent(List.of(3L));
+		verify(transactionManager, times(2)).commit(any());
+	}
+
+	@Test
+	void shouldKeepMessagesWhenSendingFails() {
+		final JmsOperations jmsOperations = mock(JmsOperations.class);
+		when(jmsOperations.execute(any(SessionCallback.class))).thenThrow(new UncategorizedJmsException("down"));
+		when(outboxMessageRepository.findOldest(any()))
+			.thenReturn(List.of(message(1L, Destinations.CARGO_HANDLED_QUEUE, "ABC123", "ABC123", 42L)));
+
+		new OutboxRelay(outboxMessageRepository, jmsOperations, transactionManager, 2).relay();
+
+		verify(outboxMessageRepository, never()).deleteSent(anyCollection());
+		verify(transactionManager).rollback(any());
+		verify(transactionManager, never()).commit(any());
+	}
+
+	private static OutboxMessage message(long id, String destination, String body, String groupId,
+			Long handlingEventId) {
+		final OutboxMessage message = spy(new OutboxMessage(destination, body, groupId, handlingEventId));
+		doReturn(id).when(message).id();
+		return message;
+	}
+
+}
@@ -6,6 +6,8 @@ import lol.maki.cargotracker.domain.model.cargo.Cargo;
 import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
 import lol.maki.cargotracker.application.ApplicationEvents;
 
+import java.util.List;
+
 public class SynchronousApplicationEventsStub implements ApplicationEvents {
 
 	CargoInspectionService cargoInspectionService;
@@ -17,7 +19,12 @@ public class SynchronousApplicationEventsStub implements ApplicationEvents {
 	@Override
 	public void cargoWasHandled(HandlingEvent event) {
 		System.out.println("EVENT: cargo was handled: " + event);
-		cargoInspectionService.inspectCargo(event.cargo().trackingId());
+		cargoInspectionService.inspectCargo(event.cargo().trackingId(), event);
+	}
+
+	@Override
+	public void cargosWereHandled(List<HandlingEvent> events) {
+		events.forEach(this::cargoWasHandled);
 	}
 
 	@Override
@@ -35,4 +42,9 @@ public class SynchronousApplicationEventsStub implements ApplicationEvents {
 		System.out.println("EVENT: received handling event registration attempt");
 	}
 
+	@Override
+	public void receivedHandlingEventRegistrationAttempts(List<HandlingEventRegistrationAttempt> attempts) {
+		System.out.println("EVENT: received " + attempts.size() + " handling event registration attempts");
+	}
+
 }
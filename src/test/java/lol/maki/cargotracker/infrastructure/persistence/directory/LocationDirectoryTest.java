@@ -0,0 +1,105 @@
+package lol.maki.cargotracker.infrastructure.persistence.directory;
+
+import lol.maki.cargotracker.domain.model.location.Location;
+import lol.maki.cargotracker.domain.model.location.LocationRepository;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import lol.maki.cargotracker.infrastructure.sampledata.SampleLocations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class LocationDirectoryTest {
+
+	private LocationRepository delegate;
+
+	private LocationDirectory directory;
+
+	@BeforeEach
+	void setUp() {
+		delegate = mock(LocationRepository.class);
+		when(delegate.getAll()).thenReturn(SampleLocations.getAll());
+		when(delegate.store(any(Location.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		directory = new LocationDirectory(delegate);
+		directory.afterSingletonsInstantiated();
+	}
+
+	@Test
+	void shouldFindPreloadedLocationsWithoutQueryingDelegate() {
+		assertThat(directory.find(new UnLocode("SESTO"))).isSameAs(SampleLocations.STOCKHOLM);
+		assertThat(directory.find(new UnLocode("cnhkg"))).isSameAs(SampleLocations.HONGKONG);
+		assertThat(directory.findAll(List.of(new UnLocode("USDAL"), new UnLocode("JNTKO"))))
+			.containsExactly(SampleLocations.DALLAS, SampleLocations.TOKYO);
+		assertThat(directory.getAll()).hasSameElementsAs(SampleLocations.getAll());
+
+		verify(delegate, never()).find(any());
+		verify(delegate, never()).findAll(any());
+	}
+
+	@Test
+	void shouldFallBackToDelegateForUnknownLocations() {
+		assertThat(directory.find(new UnLocode("NOLOC"))).isNull();
+
+		verify(delegate).find(new UnLocode("NOLOC"));
+	}
+
+	@Test
+	void shouldReplaceTableWhenLocationIsStored() {
+		List<Location> before = directory.getAll();
+		Location oslo = new Location(new UnLocode("NOOSL"), "Oslo");
+
+		directory.store(oslo);
+
+		assertThat(directory.find(new UnLocode("NOOSL"))).isSameAs(oslo);
+		assertThat(directory.getAll()).hasSize(before.size() + 1).contains(oslo);
+		assertThat(before).doesNotContain(oslo);
+		verify(delegate).store(oslo);
+		verify(delegate, never()).find(any());
+	}
+
+	@Test
+	void shouldAddStoredLocationOnlyAfterCommit() {
+		Location oslo = new Location(new UnLocode("NOOSL"), "Oslo");
+		Location bergen = new Location(new UnLocode("NOBGO"), "Bergen");
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			directory.store(oslo);
+			directory.store(bergen);
+			assertThat(directory.getAll()).doesNotContain(oslo, bergen);
+
+			List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager
+				.getSynchronizations();
+			synchronizations.get(0).afterCommit();
+			synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertThat(directory.getAll()).contains(oslo).doesNotContain(bergen);
+	}
+
+	@Test
+	void shouldParseUnLocodesOfKnownLocationsWithoutCreatingThem() {
+		assertThat(directory.unLocode("SESTO")).isSameAs(SampleLocations.STOCKHOLM.unLocode());
+		assertThat(directory.unLocode("sesto")).isSameAs(SampleLocations.STOCKHOLM.unLocode());
+		assertThat(directory.unLocode("NOOSL")).isEqualTo(new UnLocode("NOOSL"));
+		assertThatThrownBy(() -> directory.unLocode("XXX")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> directory.unLocode(null)).isInstanceOf(NullPointerException.class);
+	}
+
+	@Test
+	void shouldKeepUnLocodeOfLocation() {
+		Location location = directory.find(new UnLocode("SESTO"));
+
+		assertThat(location.unLocode()).isSameAs(location.unLocode()).isEqualTo(new UnLocode("SESTO"));
+	}
+
+}
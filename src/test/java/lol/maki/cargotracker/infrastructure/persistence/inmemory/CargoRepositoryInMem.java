@@ -2,9 +2,11 @@ package lol.maki.cargotracker.infrastructure.persistence.inmemory;
 
 import lol.maki.cargotracker.domain.model.cargo.Cargo;
 import lol.maki.cargotracker.domain.model.cargo.CargoRepository;
+import lol.maki.cargotracker.domain.model.cargo.DeliveryVersion;
 import lol.maki.cargotracker.domain.model.cargo.RouteSpecification;
 import lol.maki.cargotracker.domain.model.cargo.TrackingId;
 import lol.maki.cargotracker.infrastructure.sampledata.SampleLocations;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
 import lol.maki.cargotracker.domain.model.handling.HandlingEventRepository;
 import lol.maki.cargotracker.domain.model.handling.HandlingHistory;
 import lol.maki.cargotracker.domain.model.location.Location;
@@ -37,6 +39,19 @@ public class CargoRepositoryInMem implements CargoRepository {
 		return cargoDb.get(trackingId.idString());
 	}
 
+	public List<Cargo> findAll(final Collection<TrackingId> trackingIds) {
+		return trackingIds.stream().map(this::find).filter(Objects::nonNull).toList();
+	}
+
+	public DeliveryVersion findDeliveryVersion(final TrackingId trackingId) {
+		final Cargo cargo = find(trackingId);
+		if (cargo == null) {
+			return null;
+		}
+		final HandlingEvent lastEvent = cargo.delivery().lastEvent;
+		return new DeliveryVersion(cargo.delivery().calculatedAt(), lastEvent == null ? null : lastEvent.id);
+	}
+
 	public void store(final Cargo cargo) {
 		cargoDb.put(cargo.trackingId().idString(), cargo);
 	}
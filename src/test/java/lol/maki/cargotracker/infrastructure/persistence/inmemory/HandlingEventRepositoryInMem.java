@@ -18,6 +18,21 @@ public class HandlingEventRepositoryInMem implements HandlingEventRepository {
 		list.add(event);
 	}
 
+	@Override
+	public void storeAll(List<HandlingEvent> events) {
+		events.forEach(this::store);
+	}
+
+	@Override
+	public HandlingEvent find(long id) {
+		return eventMap.values()
+			.stream()
+			.flatMap(List::stream)
+			.filter(event -> event.id == id)
+			.findFirst()
+			.orElse(null);
+	}
+
 	@Override
 	public HandlingHistory lookupHandlingHistoryOfCargo(TrackingId trackingId) {
 		List<HandlingEvent> events = eventMap.get(trackingId);
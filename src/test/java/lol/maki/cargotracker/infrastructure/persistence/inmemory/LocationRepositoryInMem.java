@@ -5,6 +5,7 @@ import lol.maki.cargotracker.domain.model.location.Location;
 import lol.maki.cargotracker.domain.model.location.LocationRepository;
 import lol.maki.cargotracker.domain.model.location.UnLocode;
 
+import java.util.Collection;
 import java.util.List;
 
 public class LocationRepositoryInMem implements LocationRepository {
@@ -18,6 +19,10 @@ public class LocationRepositoryInMem implements LocationRepository {
 		return null;
 	}
 
+	public List<Location> findAll(Collection<UnLocode> unLocodes) {
+		return SampleLocations.getAll().stream().filter(location -> unLocodes.contains(location.unLocode())).toList();
+	}
+
 	public List<Location> getAll() {
 		return SampleLocations.getAll();
 	}
@@ -5,12 +5,25 @@ import lol.maki.cargotracker.domain.model.voyage.Voyage;
 import lol.maki.cargotracker.domain.model.voyage.VoyageNumber;
 import lol.maki.cargotracker.domain.model.voyage.VoyageRepository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
 public final class VoyageRepositoryInMem implements VoyageRepository {
 
 	public Voyage find(VoyageNumber voyageNumber) {
 		return SampleVoyages.lookup(voyageNumber);
 	}
 
+	public List<Voyage> findAll(Collection<VoyageNumber> voyageNumbers) {
+		return voyageNumbers.stream().map(SampleVoyages::lookup).filter(Objects::nonNull).toList();
+	}
+
+	@Override
+	public List<Voyage> getAll() {
+		return SampleVoyages.getAll();
+	}
+
 	@Override
 	public void store(Voyage voyage) {
 		// noop
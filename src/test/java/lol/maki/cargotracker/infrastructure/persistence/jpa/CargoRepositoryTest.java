@@ -148,6 +148,18 @@ class CargoRepositoryTest {
 		assertThat(countLegsForCargo(cargoId)).isEqualTo(1);
 	}
 
+	@Test
+	void testFindDeliveryVersion() {
+		final TrackingId trackingId = new TrackingId("ABC123");
+		final Cargo cargo = cargoRepository.find(trackingId);
+
+		final DeliveryVersion version = cargoRepository.findDeliveryVersion(trackingId);
+
+		assertThat(version.calculatedAt()).isEqualTo(cargo.delivery().calculatedAt());
+		assertThat(version.lastHandlingEventId()).isEqualTo(cargo.delivery().lastEvent.id);
+		assertThat(cargoRepository.findDeliveryVersion(new TrackingId("UNKNOWN"))).isNull();
+	}
+
 	@Test
 	void testFindAll() {
 		List<Cargo> all = cargoRepository.getAll();
@@ -155,6 +167,30 @@ class CargoRepositoryTest {
 		assertThat(all).hasSize(2);
 	}
 
+	@Test
+	void testFindSummaries() {
+		final CargoSummary abc123 = new CargoSummary("ABC123", "CNHKG", "FIHEL", DateUtils.toDate("2009-03-15"),
+				cargoRepository.find(new TrackingId("ABC123")).delivery().routingStatus());
+		assertThat(cargoRepository.findSummaries(CargoSummaryFilter.NONE, null, 10)).extracting("trackingId")
+			.containsExactly("ABC123", "JKL567");
+		assertThat(cargoRepository.findSummaries(CargoSummaryFilter.NONE, null, 1)).containsExactly(abc123);
+		assertThat(cargoRepository.findSummaries(CargoSummaryFilter.NONE, new TrackingId("ABC123"), 1))
+			.extracting("trackingId")
+			.containsExactly("JKL567");
+
+		assertThat(cargoRepository.findSummaries(new CargoSummaryFilter(abc123.routingStatus(),
+				SampleLocations.HONGKONG.unLocode(), SampleLocations.HELSINKI.unLocode(),
+				DateUtils.toDate("2009-03-15"), DateUtils.toDate("2009-03-16")), null, 10))
+			.containsExactly(abc123);
+		assertThat(cargoRepository.findSummaries(
+				new CargoSummaryFilter(null, null, null, DateUtils.toDate("2009-03-16"), null), null, 10))
+			.extracting("trackingId")
+			.containsExactly("JKL567");
+		assertThat(cargoRepository.findSummaries(
+				new CargoSummaryFilter(null, SampleLocations.STOCKHOLM.unLocode(), null, null, null), null, 10))
+			.isEmpty();
+	}
+
 	@Test
 	void testNextTrackingId() {
 		TrackingId trackingId = cargoRepository.nextTrackingId();
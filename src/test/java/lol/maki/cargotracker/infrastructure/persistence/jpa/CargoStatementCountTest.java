@@ -0,0 +1,79 @@
+package lol.maki.cargotracker.infrastructure.persistence.jpa;
+
+import jakarta.persistence.EntityManager;
+import lol.maki.cargotracker.domain.model.cargo.Cargo;
+import lol.maki.cargotracker.domain.model.cargo.CargoRepository;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.domain.model.handling.HandlingEventRepository;
+import lol.maki.cargotracker.interfaces.booking.facade.CargoRoutingDTO;
+import lol.maki.cargotracker.interfaces.booking.facade.CargoRoutingDTOAssembler;
+import lol.maki.cargotracker.interfaces.tracking.api.CargoTrackingDTO;
+import lol.maki.cargotracker.interfaces.tracking.api.CargoTrackingDTOConverter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pins the number of statements needed to display a cargo, so that a change in the
+ * mapping or in the views doesn't bring back a select per leg, voyage or location.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(TestConfig.class)
+class CargoStatementCountTest {
+
+	@Autowired
+	CargoRepository cargoRepository;
+
+	@Autowired
+	HandlingEventRepository handlingEventRepository;
+
+	@Autowired
+	EntityManager entityManager;
+
+	Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		// Starts with an empty persistence context, like a request
+		entityManager.clear();
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void shouldTrackCargoWithTwoStatements() {
+		final TrackingId trackingId = new TrackingId("ABC123");
+		final StaticMessageSource messageSource = new StaticMessageSource();
+		messageSource.setUseCodeAsDefaultMessage(true);
+
+		final Cargo cargo = cargoRepository.findWithItinerary(trackingId);
+		final List<HandlingEvent> handlingEvents = handlingEventRepository
+			.lookupDistinctHandlingEventsOfCargo(trackingId);
+		final CargoTrackingDTO cargoTracking = CargoTrackingDTOConverter.convert(cargo, handlingEvents, messageSource,
+				Locale.ENGLISH);
+
+		assertThat(cargoTracking.handlingEvents()).hasSize(3);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldLoadCargoForRoutingWithOneStatement() {
+		final Cargo cargo = cargoRepository.findWithItinerary(new TrackingId("ABC123"));
+		final CargoRoutingDTO cargoRouting = new CargoRoutingDTOAssembler().toDTO(cargo);
+
+		assertThat(cargoRouting.legs()).extracting("from").containsExactly("CNHKG", "USNYC", "USDAL");
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+}
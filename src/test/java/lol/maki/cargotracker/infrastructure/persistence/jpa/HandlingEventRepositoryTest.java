@@ -15,6 +15,7 @@ import lol.maki.cargotracker.domain.model.location.LocationRepository;
 import lol.maki.cargotracker.domain.model.location.UnLocode;
 
 import java.time.Instant;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -74,4 +75,25 @@ class HandlingEventRepositoryTest {
 		assertThat(handlingEvents).hasSize(3);
 	}
 
-}
\ No newline at end of file
+	@Test
+	void testFindDistinctEventsForCargoOrderedByCompletionTime() {
+		TrackingId trackingId = new TrackingId("ABC123");
+		Cargo cargo = cargoRepository.find(trackingId);
+		Location location = locationRepository.find(new UnLocode("SESTO"));
+		// The same event, registered twice
+		handlingEventRepository.store(new HandlingEvent(cargo, Instant.ofEpochMilli(10), Instant.ofEpochMilli(20),
+				HandlingEvent.Type.CLAIM, location));
+		handlingEventRepository.store(new HandlingEvent(cargo, Instant.ofEpochMilli(10), Instant.ofEpochMilli(30),
+				HandlingEvent.Type.CLAIM, location));
+		flush();
+
+		List<HandlingEvent> handlingEvents = handlingEventRepository.lookupDistinctHandlingEventsOfCargo(trackingId);
+
+		assertThat(handlingEvents).hasSize(4)
+			.isSortedAccordingTo(Comparator.comparing(HandlingEvent::completionTime))
+			.containsExactlyInAnyOrderElementsOf(
+					handlingEventRepository.lookupHandlingHistoryOfCargo(trackingId).distinctEventsByCompletionTime());
+		assertThat(handlingEvents.get(0).registrationTime()).isEqualTo(Instant.ofEpochMilli(20));
+	}
+
+}
@@ -0,0 +1,164 @@
+package lol.maki.cargotracker.infrastructure.persistence.jpa;
+
+import lol.maki.cargotracker.domain.model.cargo.Cargo;
+import lol.maki.cargotracker.domain.model.cargo.CargoRepository;
+import lol.maki.cargotracker.domain.model.cargo.RouteSpecification;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.domain.model.handling.HandlingEventRepository;
+import lol.maki.cargotracker.domain.model.location.Location;
+import lol.maki.cargotracker.domain.model.location.LocationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.invoke.MethodHandles;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.HELSINKI;
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.HONGKONG;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares looking up the distinct handling events of a cargo in the database with
+ * loading its whole handling history and deduplicating it in memory, with 10 million
+ * handling events of 100 thousand cargos. Every tenth event is a duplicate registration.
+ * <p>
+ * Run with {@code ./mvnw test -Pload-test}, the number of events can be changed with
+ * {@code -Dbenchmark.handlingEvents}.
+ */
+@Tag("load")
+@DataJpaTest
+@Import(TestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HandlingHistoryQueryBenchmarkTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private static final int HANDLING_EVENTS = Integer.getInteger("benchmark.handlingEvents", 10_000_000);
+
+	private static final int EVENTS_PER_CARGO = 100;
+
+	private static final int LOOKUPS = 1000;
+
+	private static final int BATCH_SIZE = 10_000;
+
+	private static final long FIRST_ID = 1_000_000_000L;
+
+	@Autowired
+	HandlingEventRepository handlingEventRepository;
+
+	@Autowired
+	CargoRepository cargoRepository;
+
+	@Autowired
+	LocationRepository locationRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from handling_event where id >= ?", FIRST_ID);
+		jdbcTemplate.update("delete from cargo where tracking_id like 'BENCH%'");
+	}
+
+	@Test
+	void compareDistinctEventsQueryWithInMemoryDeduplication() {
+		final TransactionTemplate tt = new TransactionTemplate(transactionManager);
+		final int cargos = HANDLING_EVENTS / EVENTS_PER_CARGO;
+		for (int offset = 0; offset < cargos; offset += BATCH_SIZE) {
+			final int first = offset;
+			tt.executeWithoutResult(status -> {
+				final Location origin = locationRepository.find(HONGKONG.unLocode());
+				final Location destination = locationRepository.find(HELSINKI.unLocode());
+				for (int i = first; i < Math.min(first + BATCH_SIZE, cargos); i++) {
+					cargoRepository.store(new Cargo(trackingId(i),
+							new RouteSpecification(origin, destination, Instant.parse("2030-01-01T00:00:00Z"))));
+				}
+			});
+		}
+		final List<Long> cargoIds = jdbcTemplate
+			.queryForList("select id from cargo where tracking_id like 'BENCH%' order by tracking_id", Long.class);
+		final List<Long> locationIds = jdbcTemplate.queryForList("select id from location", Long.class);
+		insertHandlingEvents(cargoIds, locationIds);
+		logger.info("Inserted {} handling events of {} cargos", HANDLING_EVENTS, cargos);
+
+		final Random random = new Random(42);
+		final List<TrackingId> trackingIds = new ArrayList<>(LOOKUPS);
+		for (int i = 0; i < LOOKUPS; i++) {
+			trackingIds.add(trackingId(random.nextInt(cargos)));
+		}
+		final Function<TrackingId, List<HandlingEvent>> inMemory = trackingId -> handlingEventRepository
+			.lookupHandlingHistoryOfCargo(trackingId)
+			.distinctEventsByCompletionTime();
+		final Function<TrackingId, List<HandlingEvent>> inDatabase = trackingId -> handlingEventRepository
+			.lookupDistinctHandlingEventsOfCargo(trackingId);
+
+		// Warms up both
+		lookup(tt, trackingIds.subList(0, 100), inMemory);
+		lookup(tt, trackingIds.subList(0, 100), inDatabase);
+		final Duration inMemoryElapsed = lookup(tt, trackingIds, inMemory);
+		final Duration inDatabaseElapsed = lookup(tt, trackingIds, inDatabase);
+
+		logger.info("{} lookups of distinct handling events: {} ms deduplicating in memory, {} ms in the database",
+				LOOKUPS, inMemoryElapsed.toMillis(), inDatabaseElapsed.toMillis());
+		tt.executeWithoutResult(status -> assertThat(inDatabase.apply(trackingIds.get(0)))
+			.containsExactlyElementsOf(inMemory.apply(trackingIds.get(0))));
+	}
+
+	private void insertHandlingEvents(List<Long> cargoIds, List<Long> locationIds) {
+		final Instant start = Instant.parse("2020-01-01T00:00:00Z");
+		final Instant registrationTime = Instant.now();
+		final List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+		for (int i = 0; i < HANDLING_EVENTS; i++) {
+			final int sequence = i / cargoIds.size();
+			// Every tenth event registers the previous one again
+			final int completion = sequence % 10 == 9 ? sequence - 1 : sequence;
+			batch.add(new Object[] { FIRST_ID + i, cargoIds.get(i % cargoIds.size()),
+					Timestamp.from(start.plus(Duration.ofHours(completion))), Timestamp.from(registrationTime),
+					completion % 2 == 0 ? "RECEIVE" : "CUSTOMS", locationIds.get(completion % locationIds.size()) });
+			if (batch.size() == BATCH_SIZE || i == HANDLING_EVENTS - 1) {
+				jdbcTemplate.batchUpdate("insert into handling_event "
+						+ "(id, cargo_id, completion_time, registration_time, type, location_id, voyage_id) "
+						+ "values (?, ?, ?, ?, ?, ?, null)", batch);
+				batch.clear();
+			}
+		}
+	}
+
+	private static Duration lookup(TransactionTemplate tt, List<TrackingId> trackingIds,
+			Function<TrackingId, List<HandlingEvent>> lookup) {
+		final long start = System.nanoTime();
+		for (TrackingId trackingId : trackingIds) {
+			// A new persistence context for every lookup, like a request
+			final List<HandlingEvent> events = tt.execute(status -> lookup.apply(trackingId));
+			assertThat(events).hasSize(EVENTS_PER_CARGO - EVENTS_PER_CARGO / 10);
+		}
+		return Duration.ofNanos(System.nanoTime() - start);
+	}
+
+	private static TrackingId trackingId(int i) {
+		return new TrackingId("BENCH%07d".formatted(i));
+	}
+
+}
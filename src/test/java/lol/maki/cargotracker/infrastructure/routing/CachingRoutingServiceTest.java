@@ -0,0 +1,102 @@
+package lol.maki.cargotracker.infrastructure.routing;
+
+import lol.maki.cargotracker.domain.model.cargo.Itinerary;
+import lol.maki.cargotracker.domain.model.cargo.Leg;
+import lol.maki.cargotracker.domain.model.cargo.RouteSpecification;
+import lol.maki.cargotracker.domain.model.location.Location;
+import lol.maki.cargotracker.domain.model.voyage.VoyageStored;
+import lol.maki.cargotracker.domain.service.RoutingService;
+import lol.maki.cargotracker.infrastructure.sampledata.SampleVoyages;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.HELSINKI;
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.HONGKONG;
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.STOCKHOLM;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CachingRoutingServiceTest {
+
+	private final RoutingService routingEngine = mock(RoutingService.class);
+
+	private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(
+			CachingRoutingService.CACHE_NAME);
+
+	/**
+	 * Start of a day in the future, the routes depart ten days before.
+	 */
+	private static final Instant DAY = Instant.now().plus(Duration.ofDays(30)).truncatedTo(ChronoUnit.DAYS);
+
+	private final Itinerary early = itinerary(DAY.minus(Duration.ofDays(5)));
+
+	private final Itinerary late = itinerary(DAY.plus(Duration.ofHours(12)));
+
+	private CachingRoutingService cachingRoutingService;
+
+	@BeforeEach
+	void setUp() {
+		when(routingEngine.fetchRoutesForSpecification(any())).thenReturn(List.of(early, late));
+		cachingRoutingService = new CachingRoutingService(routingEngine, cacheManager);
+	}
+
+	@Test
+	void shouldFetchRoutesOncePerDayOfDeadline() {
+		final List<Itinerary> endOfDay = cachingRoutingService
+			.fetchRoutesForSpecification(spec(HELSINKI, DAY.plus(Duration.ofHours(23))));
+		final List<Itinerary> startOfDay = cachingRoutingService
+			.fetchRoutesForSpecification(spec(HELSINKI, DAY.plus(Duration.ofHours(6))));
+
+		assertThat(endOfDay).containsExactly(early, late);
+		// The cached candidates that arrive too late are filtered out
+		assertThat(startOfDay).containsExactly(early);
+		verify(routingEngine).fetchRoutesForSpecification(spec(HELSINKI, DAY.plus(Duration.ofDays(1))));
+		verifyNoMoreInteractions(routingEngine);
+	}
+
+	@Test
+	void shouldFetchRoutesPerOriginDestinationAndDay() {
+		cachingRoutingService.fetchRoutesForSpecification(spec(HELSINKI, DAY.plus(Duration.ofHours(12))));
+		cachingRoutingService.fetchRoutesForSpecification(spec(HELSINKI, DAY.plus(Duration.ofHours(36))));
+		cachingRoutingService.fetchRoutesForSpecification(spec(STOCKHOLM, DAY.plus(Duration.ofHours(12))));
+
+		verify(routingEngine, times(3)).fetchRoutesForSpecification(any());
+	}
+
+	@Test
+	void shouldFetchRoutesAgainWhenVoyageIsStored() {
+		final RouteSpecification routeSpecification = spec(HELSINKI, DAY.plus(Duration.ofHours(12)));
+		cachingRoutingService.fetchRoutesForSpecification(routeSpecification);
+
+		cachingRoutingService.onVoyageStored(new VoyageStored(SampleVoyages.CM001.voyageNumber()));
+		cachingRoutingService.fetchRoutesForSpecification(routeSpecification);
+
+		verify(routingEngine, times(2)).fetchRoutesForSpecification(any());
+	}
+
+	@Test
+	void shouldNotReturnCachedRoutesThatHaveDeparted() {
+		final Itinerary departed = new Itinerary(List.of(new Leg(SampleVoyages.CM001, HONGKONG, HELSINKI,
+				Instant.now().minus(Duration.ofMinutes(1)), DAY.minus(Duration.ofDays(1)))));
+		when(routingEngine.fetchRoutesForSpecification(any())).thenReturn(List.of(departed, early));
+
+		assertThat(cachingRoutingService.fetchRoutesForSpecification(spec(HELSINKI, DAY))).containsExactly(early);
+	}
+
+	private static RouteSpecification spec(Location destination, Instant arrivalDeadline) {
+		return new RouteSpecification(HONGKONG, destination, arrivalDeadline);
+	}
+
+	private static Itinerary itinerary(Instant arrival) {
+		return new Itinerary(
+				List.of(new Leg(SampleVoyages.CM001, HONGKONG, HELSINKI, DAY.minus(Duration.ofDays(10)), arrival)));
+	}
+
+}
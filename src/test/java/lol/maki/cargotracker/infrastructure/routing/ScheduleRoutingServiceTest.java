@@ -0,0 +1,74 @@
+package lol.maki.cargotracker.infrastructure.routing;
+
+import lol.maki.cargotracker.domain.model.cargo.Itinerary;
+import lol.maki.cargotracker.domain.model.cargo.RouteSpecification;
+import lol.maki.cargotracker.domain.model.voyage.Voyage;
+import lol.maki.cargotracker.domain.model.voyage.VoyageNumber;
+import lol.maki.cargotracker.domain.model.voyage.VoyageRepository;
+import lol.maki.cargotracker.domain.model.voyage.VoyageStored;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.HELSINKI;
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.HONGKONG;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ScheduleRoutingServiceTest {
+
+	private final VoyageRepository voyageRepository = mock(VoyageRepository.class);
+
+	private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(
+			ScheduleRoutingService.CACHE_NAME);
+
+	private final Instant now = Instant.now();
+
+	private ScheduleRoutingService scheduleRoutingService;
+
+	@BeforeEach
+	void setUp() {
+		when(voyageRepository.getAll()).thenReturn(List.of(voyage("PAST", now.minus(Duration.ofDays(1))),
+				voyage("NEXT", now.plus(Duration.ofDays(1))), voyage("LATER", now.plus(Duration.ofDays(2)))));
+		scheduleRoutingService = new ScheduleRoutingService(voyageRepository, cacheManager, 5);
+	}
+
+	@Test
+	void shouldFindRoutesDepartingAfterNowAndArrivingBeforeDeadline() {
+		final List<Itinerary> itineraries = scheduleRoutingService
+			.fetchRoutesForSpecification(new RouteSpecification(HONGKONG, HELSINKI, now.plus(Duration.ofDays(10))));
+
+		assertThat(itineraries).flatMap(Itinerary::legs)
+			.map(leg -> leg.voyage().voyageNumber().idString())
+			.containsExactly("NEXT", "LATER");
+		assertThat(scheduleRoutingService
+			.fetchRoutesForSpecification(new RouteSpecification(HONGKONG, HELSINKI, now.plus(Duration.ofDays(8)))))
+			.flatMap(Itinerary::legs)
+			.map(leg -> leg.voyage().voyageNumber().idString())
+			.containsExactly("NEXT");
+	}
+
+	@Test
+	void shouldLoadTimetableOnceUntilVoyageIsStored() {
+		final RouteSpecification routeSpecification = new RouteSpecification(HONGKONG, HELSINKI,
+				now.plus(Duration.ofDays(10)));
+		scheduleRoutingService.fetchRoutesForSpecification(routeSpecification);
+		scheduleRoutingService.fetchRoutesForSpecification(routeSpecification);
+		verify(voyageRepository).getAll();
+
+		scheduleRoutingService.onVoyageStored(new VoyageStored(new VoyageNumber("NEXT")));
+		scheduleRoutingService.fetchRoutesForSpecification(routeSpecification);
+		verify(voyageRepository, times(2)).getAll();
+	}
+
+	private static Voyage voyage(String voyageNumber, Instant departure) {
+		return new Voyage.Builder(new VoyageNumber(voyageNumber), HONGKONG)
+			.addMovement(HELSINKI, departure, departure.plus(Duration.ofDays(6)))
+			.build();
+	}
+
+}
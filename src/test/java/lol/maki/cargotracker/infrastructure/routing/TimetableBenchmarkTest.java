@@ -0,0 +1,139 @@
+package lol.maki.cargotracker.infrastructure.routing;
+
+import lol.maki.cargotracker.domain.model.cargo.Itinerary;
+import lol.maki.cargotracker.domain.model.location.Location;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import lol.maki.cargotracker.domain.model.voyage.Voyage;
+import lol.maki.cargotracker.domain.model.voyage.VoyageNumber;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures building a timetable of 10 thousand voyages with 100 thousand carrier
+ * movements between 500 locations over a year, and finding the earliest arriving and the
+ * five best itineraries between random locations in it.
+ * <p>
+ * Run with {@code ./mvnw test -Pload-test}, the number of voyages can be changed with
+ * {@code -Dbenchmark.voyages}.
+ */
+@Tag("load")
+class TimetableBenchmarkTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private static final int VOYAGES = Integer.getInteger("benchmark.voyages", 10_000);
+
+	private static final int MOVEMENTS_PER_VOYAGE = 10;
+
+	private static final int LOCATIONS = 500;
+
+	private static final int QUERIES = 1000;
+
+	private static final Instant START = Instant.parse("2030-01-01T00:00:00Z");
+
+	@Test
+	void findItinerariesInLargeTimetable() {
+		final Random random = new Random(42);
+		final List<Location> locations = locations();
+		final List<Voyage> voyages = voyages(random, locations);
+
+		final long start = System.nanoTime();
+		final Timetable timetable = Timetable.of(voyages);
+		logger.info("Built a timetable of {} carrier movements of {} voyages in {} ms", timetable.connections(),
+				timetable.voyages(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+		assertThat(timetable.connections()).isEqualTo(VOYAGES * MOVEMENTS_PER_VOYAGE);
+
+		final List<Query> queries = new ArrayList<>(QUERIES);
+		for (int i = 0; i < QUERIES; i++) {
+			final Location origin = locations.get(random.nextInt(LOCATIONS));
+			Location destination = locations.get(random.nextInt(LOCATIONS));
+			while (destination.sameIdentityAs(origin)) {
+				destination = locations.get(random.nextInt(LOCATIONS));
+			}
+			final Instant departAfter = START.plus(Duration.ofHours(random.nextInt(24 * 180)));
+			queries.add(new Query(origin.unLocode(), destination.unLocode(), departAfter,
+					departAfter.plus(Duration.ofDays(60))));
+		}
+		final Function<Query, List<Itinerary>> earliestArrival = query -> timetable.itineraries(query.origin(),
+				query.destination(), query.departAfter(), query.arrivalDeadline(), 1);
+		final Function<Query, List<Itinerary>> fiveBest = query -> timetable.itineraries(query.origin(),
+				query.destination(), query.departAfter(), query.arrivalDeadline(), 5);
+
+		// Warms up both
+		run(queries.subList(0, 100), earliestArrival);
+		run(queries.subList(0, 100), fiveBest);
+		final long earliestArrivalStart = System.nanoTime();
+		final int found = run(queries, earliestArrival);
+		final Duration earliestArrivalElapsed = Duration.ofNanos(System.nanoTime() - earliestArrivalStart);
+		final long fiveBestStart = System.nanoTime();
+		final int foundFiveBest = run(queries, fiveBest);
+		final Duration fiveBestElapsed = Duration.ofNanos(System.nanoTime() - fiveBestStart);
+
+		logger.info("{} earliest arrival queries: {} ms, {} itineraries found", QUERIES,
+				earliestArrivalElapsed.toMillis(), found);
+		logger.info("{} five best itineraries queries: {} ms, {} itineraries found", QUERIES,
+				fiveBestElapsed.toMillis(), foundFiveBest);
+		assertThat(found).isPositive();
+		assertThat(foundFiveBest).isGreaterThanOrEqualTo(found);
+	}
+
+	private static int run(List<Query> queries, Function<Query, List<Itinerary>> query) {
+		int found = 0;
+		for (Query q : queries) {
+			found += query.apply(q).size();
+		}
+		return found;
+	}
+
+	private static List<Location> locations() {
+		final List<Location> locations = new ArrayList<>(LOCATIONS);
+		for (int i = 0; i < LOCATIONS; i++) {
+			final String code = "ZZ" + letter(i / 26 / 26) + letter(i / 26) + letter(i);
+			locations.add(new Location(new UnLocode(code), "Location " + code));
+		}
+		return locations;
+	}
+
+	private static char letter(int i) {
+		return (char) ('A' + i % 26);
+	}
+
+	private static List<Voyage> voyages(Random random, List<Location> locations) {
+		final List<Voyage> voyages = new ArrayList<>(VOYAGES);
+		for (int i = 0; i < VOYAGES; i++) {
+			Location location = locations.get(random.nextInt(LOCATIONS));
+			Instant time = START.plus(Duration.ofHours(random.nextInt(24 * 365)));
+			final Voyage.Builder builder = new Voyage.Builder(new VoyageNumber("BENCH%05d".formatted(i)), location);
+			for (int j = 0; j < MOVEMENTS_PER_VOYAGE; j++) {
+				Location next = locations.get(random.nextInt(LOCATIONS));
+				while (next.sameIdentityAs(location)) {
+					next = locations.get(random.nextInt(LOCATIONS));
+				}
+				// Sails for 1 to 10 days, then stays in port for up to 2 days
+				final Instant arrival = time.plus(Duration.ofHours(24 + random.nextInt(24 * 9)));
+				builder.addMovement(next, time, arrival);
+				location = next;
+				time = arrival.plus(Duration.ofHours(random.nextInt(48)));
+			}
+			voyages.add(builder.build());
+		}
+		return voyages;
+	}
+
+	private record Query(UnLocode origin, UnLocode destination, Instant departAfter, Instant arrivalDeadline) {
+
+	}
+
+}
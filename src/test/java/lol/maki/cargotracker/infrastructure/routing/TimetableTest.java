@@ -0,0 +1,88 @@
+package lol.maki.cargotracker.infrastructure.routing;
+
+import lol.maki.cargotracker.domain.model.cargo.Itinerary;
+import lol.maki.cargotracker.domain.model.cargo.Leg;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import lol.maki.cargotracker.infrastructure.sampledata.SampleVoyages;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static lol.maki.cargotracker.infrastructure.sampledata.SampleLocations.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TimetableTest {
+
+	private final Timetable timetable = Timetable.of(SampleVoyages.getAll());
+
+	@Test
+	void shouldFindEarliestArrival() {
+		final Itinerary itinerary = timetable.earliestArrival(HONGKONG.unLocode(), HELSINKI.unLocode(),
+				Instant.parse("2008-09-30T00:00:00Z"), Instant.parse("2008-12-01T00:00:00Z"));
+
+		assertThat(itinerary.legs()).extracting(leg -> leg.voyage().voyageNumber().idString(),
+				Leg::loadLocation, Leg::unloadLocation, Leg::loadTime, Leg::unloadTime)
+			.containsExactly(
+					tuple("0100S", HONGKONG, NEWYORK, Instant.parse("2008-10-01T12:00:00Z"),
+							Instant.parse("2008-10-23T23:10:00Z")),
+					tuple("0200T", NEWYORK, DALLAS, Instant.parse("2008-10-24T07:00:00Z"),
+							Instant.parse("2008-10-25T19:30:00Z")),
+					tuple("0300A", DALLAS, HELSINKI, Instant.parse("2008-10-29T03:30:00Z"),
+							Instant.parse("2008-11-02T11:15:00Z")));
+	}
+
+	@Test
+	void shouldFindAlternativesThatAvoidVoyagesOfEarlierItineraries() {
+		final List<Itinerary> itineraries = timetable.itineraries(HONGKONG.unLocode(), HELSINKI.unLocode(),
+				Instant.parse("2008-09-30T00:00:00Z"), Instant.parse("2008-12-01T00:00:00Z"), 5);
+
+		assertThat(itineraries).map(TimetableTest::voyageNumbers)
+			.containsExactly(List.of("0100S", "0200T", "0300A"), List.of("0100S", "0200T", "0301S"));
+	}
+
+	@Test
+	void shouldStayOnBoardUnlessTransferringArrivesEarlier() {
+		final List<Itinerary> itineraries = timetable.itineraries(HONGKONG.unLocode(), NEWYORK.unLocode(),
+				Instant.parse("2009-01-01T00:00:00Z"), Instant.parse("2009-04-01T00:00:00Z"), 5);
+
+		assertThat(itineraries).map(TimetableTest::voyageNumbers)
+			.containsExactly(List.of("V100", "V200"), List.of("V100"));
+		assertThat(itineraries.get(1).legs()).singleElement()
+			.extracting(Leg::loadLocation, Leg::unloadLocation)
+			.containsExactly(HONGKONG, NEWYORK);
+	}
+
+	@Test
+	void shouldArriveBeforeDeadline() {
+		final Instant departAfter = Instant.parse("2008-09-30T00:00:00Z");
+
+		assertThat(timetable.itineraries(HONGKONG.unLocode(), HELSINKI.unLocode(), departAfter,
+				Instant.parse("2008-11-04T00:00:00Z"), 5))
+			.map(TimetableTest::voyageNumbers)
+			.containsExactly(List.of("0100S", "0200T", "0300A"));
+		assertThat(timetable.earliestArrival(HONGKONG.unLocode(), HELSINKI.unLocode(), departAfter,
+				Instant.parse("2008-11-02T11:15:00Z")))
+			.isNull();
+	}
+
+	@Test
+	void shouldDepartAfterGivenTime() {
+		assertThat(timetable.itineraries(HONGKONG.unLocode(), HELSINKI.unLocode(),
+				Instant.parse("2008-10-01T12:01:00Z"), Instant.parse("2008-12-01T00:00:00Z"), 5))
+			.isEmpty();
+	}
+
+	@Test
+	void shouldNotFindRoutesOfUnknownLocations() {
+		assertThat(timetable.itineraries(new UnLocode("XXXXX"), HELSINKI.unLocode(),
+				Instant.parse("2008-09-30T00:00:00Z"), Instant.parse("2008-12-01T00:00:00Z"), 5))
+			.isEmpty();
+	}
+
+	private static List<String> voyageNumbers(Itinerary itinerary) {
+		return itinerary.legs().stream().map(leg -> leg.voyage().voyageNumber().idString()).toList();
+	}
+
+}
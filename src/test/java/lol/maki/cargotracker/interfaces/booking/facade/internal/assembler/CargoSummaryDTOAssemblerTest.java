@@ -0,0 +1,45 @@
+package lol.maki.cargotracker.interfaces.booking.facade.internal.assembler;
+
+import lol.maki.cargotracker.domain.model.cargo.CargoSummary;
+import lol.maki.cargotracker.domain.model.cargo.CargoSummaryFilter;
+import lol.maki.cargotracker.domain.model.cargo.RoutingStatus;
+import lol.maki.cargotracker.domain.model.location.UnLocode;
+import lol.maki.cargotracker.interfaces.booking.facade.CargoSummaryDTO;
+import lol.maki.cargotracker.interfaces.booking.facade.CargoSummaryDTOAssembler;
+import lol.maki.cargotracker.interfaces.booking.facade.CargoSummaryFilterDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CargoSummaryDTOAssemblerTest {
+
+	@Test
+	void testToDTO() {
+		final CargoSummaryDTOAssembler assembler = new CargoSummaryDTOAssembler();
+		final Instant arrivalDeadline = Instant.parse("2009-03-15T00:00:00Z");
+
+		final CargoSummaryDTO dto = assembler
+			.toDTO(new CargoSummary("ABC123", "CNHKG", "FIHEL", arrivalDeadline, RoutingStatus.MISROUTED));
+
+		assertThat(dto).isEqualTo(new CargoSummaryDTO("ABC123", "CNHKG", "FIHEL", arrivalDeadline, true, true));
+		assertThat(assembler.toDTO(new CargoSummary("ABC123", "CNHKG", "FIHEL", arrivalDeadline,
+				RoutingStatus.NOT_ROUTED)).routed()).isFalse();
+	}
+
+	@Test
+	void testFromDTO() {
+		final CargoSummaryDTOAssembler assembler = new CargoSummaryDTOAssembler();
+
+		final CargoSummaryFilter filter = assembler.fromDTO(new CargoSummaryFilterDTO("ROUTED", "CNHKG", "",
+				LocalDate.of(2009, 3, 1), LocalDate.of(2009, 3, 15)));
+
+		assertThat(filter).isEqualTo(new CargoSummaryFilter(RoutingStatus.ROUTED, new UnLocode("CNHKG"), null,
+				Instant.parse("2009-03-01T00:00:00Z"), Instant.parse("2009-03-16T00:00:00Z")));
+		assertThat(assembler.fromDTO(new CargoSummaryFilterDTO(null, null, null, null, null)))
+			.isEqualTo(CargoSummaryFilter.NONE);
+	}
+
+}
@@ -0,0 +1,68 @@
+package lol.maki.cargotracker.interfaces.booking.web;
+
+import lol.maki.cargotracker.interfaces.booking.facade.BookingServiceFacade;
+import lol.maki.cargotracker.interfaces.booking.facade.CargoSummaryFilterDTO;
+import lol.maki.cargotracker.interfaces.booking.facade.CargoSummaryPageDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.view.InternalResourceViewResolver;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+class CargoAdminControllerTest {
+
+	private final BookingServiceFacade bookingServiceFacade = mock(BookingServiceFacade.class);
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setup() {
+		InternalResourceViewResolver resolver = new InternalResourceViewResolver();
+		resolver.setPrefix("/jsp/");
+		resolver.setSuffix(".jsp");
+		this.mockMvc = MockMvcBuilders.standaloneSetup(new CargoAdminController(bookingServiceFacade))
+			.setViewResolvers(resolver)
+			.build();
+		when(bookingServiceFacade.listCargos(any(), any(), anyInt()))
+			.thenReturn(new CargoSummaryPageDTO(List.of(), null));
+	}
+
+	@Test
+	void shouldListCargosMatchingFilter() throws Exception {
+		mockMvc
+			.perform(get("/admin/list").param("routingStatus", "MISROUTED")
+				.param("originUnlocode", "CNHKG")
+				.param("destinationUnlocode", "")
+				.param("arrivalDeadlineFrom", "2009-03-01"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("admin/list"));
+
+		verify(bookingServiceFacade).listCargos(
+				new CargoSummaryFilterDTO("MISROUTED", "CNHKG", "", LocalDate.of(2009, 3, 1), null), null, 50);
+	}
+
+	@Test
+	void shouldRejectUnknownRoutingStatus() throws Exception {
+		mockMvc.perform(get("/admin/list").param("routingStatus", "LOST")).andExpect(status().isBadRequest());
+
+		verify(bookingServiceFacade, never()).listCargos(any(), any(), anyInt());
+	}
+
+	@Test
+	void shouldRejectMalformedUnLocode() throws Exception {
+		mockMvc.perform(get("/admin/list").param("originUnlocode", "NOT A LOCODE"))
+			.andExpect(status().isBadRequest());
+
+		verify(bookingServiceFacade, never()).listCargos(any(), any(), anyInt());
+	}
+
+}
@@ -0,0 +1,146 @@
+package lol.maki.cargotracker.interfaces.handling.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import lol.maki.cargotracker.application.ApplicationEvents;
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.infrastructure.persistence.inmemory.LocationRepositoryInMem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class HandlingReportRestControllerTest {
+
+	private static final String VALID_REPORT = """
+			{"completionTime":"2022-10-30T13:37:00","trackingIds":["ABC123","JKL567"],"type":"LOAD","unLocode":"SESTO","voyageNumber":"0101"}""";
+
+	private static final String INVALID_DATE_REPORT = """
+			{"completionTime":"invalid date","trackingIds":["ABC123"],"type":"CUSTOMS","unLocode":"SESTO"}""";
+
+	private static final String INVALID_TYPE_REPORT = """
+			{"completionTime":"2022-10-30T13:37:00","trackingIds":["ABC123"],"type":"SHIP","unLocode":"SESTO"}""";
+
+	private static final String NESTED_MISMATCH_REPORT = """
+			{"completionTime":"2022-10-30T13:37:00","trackingIds":{"id":["ABC123"]},"type":"LOAD","unLocode":"SESTO"}""";
+
+	private static final String MISSING_VALUES_REPORT = """
+			{"completionTime":null,"trackingIds":[],"type":"LOAD","unLocode":"SESTO"}""";
+
+	private ApplicationEvents applicationEvents;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		applicationEvents = mock(ApplicationEvents.class);
+		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		mockMvc = MockMvcBuilders
+			.standaloneSetup(new HandlingReportRestController(applicationEvents, objectMapper,
+					Validation.buildDefaultValidatorFactory().getValidator(), new LocationRepositoryInMem(), 3))
+			.build();
+	}
+
+	@Test
+	void shouldAcceptJsonArrayAndReportResultPerElement() throws Exception {
+		String body = "[" + VALID_REPORT + "," + INVALID_DATE_REPORT + "," + INVALID_TYPE_REPORT + "]";
+
+		mockMvc.perform(post("/handlingReport/bulk").contentType(MediaType.APPLICATION_JSON).content(body))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(3))
+			.andExpect(jsonPath("$[0].status").value("ACCEPTED"))
+			.andExpect(jsonPath("$[0].registrationAttempts").value(2))
+			.andExpect(jsonPath("$[1].status").value("REJECTED"))
+			.andExpect(jsonPath("$[2].status").value("REJECTED"))
+			.andExpect(jsonPath("$[2].message").value(
+					"SHIP is not a valid handling event type. Valid types are: [LOAD, UNLOAD, RECEIVE, CLAIM, CUSTOMS]"));
+
+		verify(applicationEvents, times(1)).receivedHandlingEventRegistrationAttempts(argThat(list -> list.size() == 2));
+	}
+
+	@Test
+	void shouldAcceptNdjsonAndSubmitInBatches() throws Exception {
+		String body = String.join("\n", VALID_REPORT, VALID_REPORT, INVALID_DATE_REPORT, VALID_REPORT) + "\n";
+
+		mockMvc.perform(post("/handlingReport/bulk").contentType(MediaType.APPLICATION_NDJSON).content(body))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(4))
+			.andExpect(jsonPath("$[2].status").value("REJECTED"))
+			.andExpect(jsonPath("$[3].index").value(3))
+			.andExpect(jsonPath("$[3].status").value("ACCEPTED"));
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<HandlingEventRegistrationAttempt>> captor = ArgumentCaptor.forClass(List.class);
+		verify(applicationEvents, times(2)).receivedHandlingEventRegistrationAttempts(captor.capture());
+		assertThat(captor.getAllValues()).extracting(List::size).containsExactly(4, 2);
+	}
+
+	@Test
+	void shouldRejectRemainderOfBodyAfterMalformedJson() throws Exception {
+		String body = VALID_REPORT + "\n{\"completionTime\":\n";
+
+		mockMvc.perform(post("/handlingReport/bulk").contentType(MediaType.APPLICATION_NDJSON).content(body))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(2))
+			.andExpect(jsonPath("$[0].status").value("ACCEPTED"))
+			.andExpect(jsonPath("$[1].status").value("REJECTED"));
+
+		verify(applicationEvents, times(1)).receivedHandlingEventRegistrationAttempts(argThat(list -> list.size() == 2));
+	}
+
+	@Test
+	void shouldSkipRemainderOfReportsThatCannotBeBound() throws Exception {
+		String body = "[" + NESTED_MISMATCH_REPORT + ",[" + VALID_REPORT + "],null," + VALID_REPORT + "]";
+
+		mockMvc.perform(post("/handlingReport/bulk").contentType(MediaType.APPLICATION_JSON).content(body))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(4))
+			.andExpect(jsonPath("$[0].status").value("REJECTED"))
+			.andExpect(jsonPath("$[1].status").value("REJECTED"))
+			.andExpect(jsonPath("$[2].status").value("REJECTED"))
+			.andExpect(jsonPath("$[3].status").value("ACCEPTED"));
+
+		verify(applicationEvents, times(1)).receivedHandlingEventRegistrationAttempts(argThat(list -> list.size() == 2));
+	}
+
+	@Test
+	void shouldRejectReportsThatAreNotValid() throws Exception {
+		String body = "[" + MISSING_VALUES_REPORT + "," + VALID_REPORT + "]";
+
+		mockMvc.perform(post("/handlingReport/bulk").contentType(MediaType.APPLICATION_JSON).content(body))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[0].status").value("REJECTED"))
+			.andExpect(jsonPath("$[0].message").value("completionTime must not be null, trackingIds must not be empty"))
+			.andExpect(jsonPath("$[1].status").value("ACCEPTED"));
+
+		verify(applicationEvents, times(1)).receivedHandlingEventRegistrationAttempts(argThat(list -> list.size() == 2));
+	}
+
+	@Test
+	void shouldRejectReportsOfBatchThatCouldNotBeSubmitted() throws Exception {
+		doNothing().doThrow(new IllegalStateException("Broker unavailable"))
+			.when(applicationEvents)
+			.receivedHandlingEventRegistrationAttempts(anyList());
+		String body = String.join("\n", VALID_REPORT, VALID_REPORT, VALID_REPORT) + "\n";
+
+		mockMvc.perform(post("/handlingReport/bulk").contentType(MediaType.APPLICATION_NDJSON).content(body))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(3))
+			.andExpect(jsonPath("$[0].status").value("ACCEPTED"))
+			.andExpect(jsonPath("$[1].status").value("ACCEPTED"))
+			.andExpect(jsonPath("$[2].status").value("REJECTED"))
+			.andExpect(jsonPath("$[2].message").value("Could not be submitted: Broker unavailable"));
+	}
+
+}
@@ -0,0 +1,109 @@
+package lol.maki.cargotracker.interfaces.handling.file;
+
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.domain.model.location.LocationRepository;
+import lol.maki.cargotracker.infrastructure.persistence.inmemory.LocationRepositoryInMem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the line based and the memory mapped handling report file parsers.
+ * <p/>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=lol.maki.cargotracker.interfaces.handling.file.HandlingReportFileParserBenchmark}
+ * or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandlingReportFileParserBenchmark {
+
+	@Param({ "100000", "1000000" })
+	private int lines;
+
+	private Path file;
+
+	private final LocationRepository locationRepository = new LocationRepositoryInMem();
+
+	private final HandlingReportFileParser lineParser = new LineHandlingReportFileParser(locationRepository);
+
+	private final HandlingReportFileParser mappedParser = new MappedHandlingReportFileParser(locationRepository);
+
+	@Setup(Level.Trial)
+	public void createFile() throws IOException {
+		file = Files.createTempFile("handlingReportBenchmark", ".csv");
+		try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+			for (int i = 0; i < lines; i++) {
+				if (i % 100 == 0) {
+					writer.write("2022-10-29 13:37    ABC123  0101    XXX   CUSTOMS");
+				}
+				else if (i % 2 == 0) {
+					writer.write("2022-10-29 13:37    ABC%d  0101    SESTO   LOAD".formatted(i % 1000));
+				}
+				else {
+					writer.write("2022-10-29 13:37    JKL%d  USDAL   RECEIVE".formatted(i % 1000));
+				}
+				writer.newLine();
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFile() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public void lineParser(Blackhole blackhole) throws IOException {
+		lineParser.parse(file, new BlackholeHandler(blackhole));
+	}
+
+	@Benchmark
+	public void mappedParser(Blackhole blackhole) throws IOException {
+		mappedParser.parse(file, new BlackholeHandler(blackhole));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(HandlingReportFileParserBenchmark.class.getSimpleName()).build())
+			.run();
+	}
+
+	private record BlackholeHandler(Blackhole blackhole) implements HandlingReportFileParser.Handler {
+
+		@Override
+		public void onAttempt(HandlingEventRegistrationAttempt attempt) {
+			blackhole.consume(attempt);
+		}
+
+		@Override
+		public void onRejectedLine(String line, Exception cause) {
+			blackhole.consume(line);
+		}
+
+	}
+
+}
@@ -0,0 +1,77 @@
+package lol.maki.cargotracker.interfaces.handling.file;
+
+import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
+import lol.maki.cargotracker.domain.model.location.LocationRepository;
+import lol.maki.cargotracker.infrastructure.persistence.inmemory.LocationRepositoryInMem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedHandlingReportFileParserTest {
+
+	private static final List<String> LINES = List.of("2022-10-29 13:37    ABC123  0101    SESTO   CUSTOMS",
+			"2022-10-29 13:37:15  ABC123  0101  SESTO  LOAD", "2022-10-30 08:00    JKL567  USDAL   RECEIVE",
+			"2022-10-30 08:00\t\tJKL567 \t0202  cnhkg   UNLOAD", "2022-10-29 13:37    ABC123  0101    XXX   CUSTOMS",
+			"2022-10-29 13:37    ABC123  0101    SESTO   SHIP", "2022-13-29 13:37    ABC123  0101    SESTO   CUSTOMS",
+			"2022/10/29 13:37    ABC123  0101    SESTO   CUSTOMS", "2022-10-29 13:37    ABC123", "",
+			"  2022-10-29 13:37    ABC123  0101    SESTO   CUSTOMS",
+			"2022-10-29 13:37    ABC123  0101    SESTO   CUSTOMS  ");
+
+	private final LocationRepository locationRepository = new LocationRepositoryInMem();
+
+	private Path file;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		file = Files.createTempFile("handlingReport", ".csv");
+	}
+
+	@Test
+	void shouldParseTheSameAttemptsAndRejectsAsLineParser() throws Exception {
+		Files.write(file, LINES);
+
+		assertThat(parse(new MappedHandlingReportFileParser(locationRepository))).containsExactlyElementsOf(
+				parse(new LineHandlingReportFileParser(locationRepository)));
+	}
+
+	@Test
+	void shouldParseLinesSpanningWindowBoundaries() throws Exception {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			lines.addAll(LINES);
+		}
+		Files.writeString(file, String.join("\r\n", lines));
+
+		List<String> expected = parse(new LineHandlingReportFileParser(locationRepository));
+		assertThat(expected).hasSize(lines.size());
+		assertThat(parse(new MappedHandlingReportFileParser(locationRepository, 128)))
+			.containsExactlyElementsOf(expected);
+	}
+
+	private List<String> parse(HandlingReportFileParser parser) throws IOException {
+		List<String> results = new ArrayList<>();
+		parser.parse(file, new HandlingReportFileParser.Handler() {
+			@Override
+			public void onAttempt(HandlingEventRegistrationAttempt attempt) {
+				results.add("accepted: " + attempt.getCompletionTime() + " " + attempt.getTrackingId().idString()
+						+ " " + Objects.toString(attempt.getVoyageNumber()) + " " + attempt.getUnLocode().idString()
+						+ " " + attempt.getType());
+			}
+
+			@Override
+			public void onRejectedLine(String line, Exception cause) {
+				results.add("rejected: " + line);
+			}
+		});
+		return results;
+	}
+
+}
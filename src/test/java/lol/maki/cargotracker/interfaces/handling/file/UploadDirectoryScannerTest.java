@@ -1,13 +1,18 @@
 package lol.maki.cargotracker.interfaces.handling.file;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lol.maki.cargotracker.application.HandlingEventRegistrationAttempt;
 import lol.maki.cargotracker.domain.model.handling.HandlingEvent;
+import lol.maki.cargotracker.infrastructure.persistence.inmemory.LocationRepositoryInMem;
 import org.apache.commons.codec.Charsets;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.file.PathUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import lol.maki.cargotracker.application.ApplicationEvents;
 
 import java.io.File;
@@ -15,9 +20,12 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -27,6 +35,8 @@ import static org.mockito.Mockito.*;
 @SuppressWarnings("resource")
 class UploadDirectoryScannerTest {
 
+	private static final String NODE_ID = "node-1";
+
 	private static final Instant exampleDate = LocalDateTime.parse("2022-10-29T13:37")
 		.atZone(ZoneOffset.UTC)
 		.toInstant();
@@ -35,43 +45,51 @@ class UploadDirectoryScannerTest {
 
 	private File parseFailureDir;
 
+	private MeterRegistry meterRegistry;
+
+	private final HandlingReportFileParser parser = new LineHandlingReportFileParser(new LocationRepositoryInMem());
+
 	@BeforeEach
 	void setUp() throws IOException {
 		uploadDir = new File(Files.createTempDirectory("upload").toUri());
 		parseFailureDir = new File(Files.createTempDirectory("parseFailure").toUri());
+		meterRegistry = new SimpleMeterRegistry();
 	}
 
 	@Test
 	void shouldParseLinesAndPublishEventsForValidFile() throws Exception {
-		ArgumentCaptor<HandlingEventRegistrationAttempt> captor = ArgumentCaptor
-			.forClass(HandlingEventRegistrationAttempt.class);
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<HandlingEventRegistrationAttempt>> captor = ArgumentCaptor.forClass(List.class);
 		ApplicationEvents appEventsMock = mock(ApplicationEvents.class);
-		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, appEventsMock);
+		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, NODE_ID, 500,
+				appEventsMock, new SyncTaskExecutor(), parser, meterRegistry);
 		URL resource = this.getClass().getResource("/sampleHandlingReportFile.csv");
 		assertThat(resource).isNotNull();
 		PathUtils.copyFile(resource, uploadDir.toPath().resolve("sampleHandlingReportFile.csv"));
 
-		scanner.run();
+		scanUntilStable(scanner);
 
-		verify(appEventsMock).receivedHandlingEventRegistrationAttempt(captor.capture());
-		HandlingEventRegistrationAttempt actual = captor.getValue();
+		verify(appEventsMock).receivedHandlingEventRegistrationAttempts(captor.capture());
+		assertThat(captor.getValue()).hasSize(1);
+		HandlingEventRegistrationAttempt actual = captor.getValue().get(0);
 		assertThat(actual)
 			.extracting("completionTime", "trackingId.id", "voyageNumber.number", "type", "unLocode.unlocode")
 			.contains(exampleDate, "ABC123", "0101", HandlingEvent.Type.CUSTOMS, "SESTO");
 		Stream<Path> files = Files.list(uploadDir.toPath());
-		assertThat(files.count()).isEqualTo(0);
+		assertThat(files.filter(Files::isRegularFile).count()).isEqualTo(0);
 		files.close();
 	}
 
 	@Test
 	void shouldCreateFileContainingInvalidLinesIfParsingFails() throws Exception {
 		ApplicationEvents appEventsMock = mock(ApplicationEvents.class);
-		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, appEventsMock);
+		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, NODE_ID, 500,
+				appEventsMock, new SyncTaskExecutor(), parser, meterRegistry);
 		URL resource = this.getClass().getResource("/sampleInvalidHandlingReportFile.csv");
 		assertThat(resource).isNotNull();
 		PathUtils.copyFile(resource, uploadDir.toPath().resolve("sampleInvalidHandlingReportFile.csv"));
 
-		scanner.run();
+		scanUntilStable(scanner);
 
 		verifyNoInteractions(appEventsMock);
 		Stream<Path> files = Files.list(parseFailureDir.toPath());
@@ -79,6 +97,194 @@ class UploadDirectoryScannerTest {
 		Path path = Files.list(parseFailureDir.toPath()).collect(Collectors.toList()).get(0);
 		String line = FileUtils.readFileToString(new File(path.toUri()), Charsets.UTF_8);
 		assertThat(line.trim()).isEqualTo("2022-10-29 13:37    ABC123  0101    XXX   CUSTOMS");
+		assertThat(meterRegistry.get("cargotracker.upload.lines").tag("outcome", "rejected").counter().count())
+			.isEqualTo(1);
+	}
+
+	@Test
+	void shouldPublishAttemptsInBoundedChunks() throws Exception {
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<HandlingEventRegistrationAttempt>> captor = ArgumentCaptor.forClass(List.class);
+		ApplicationEvents appEventsMock = mock(ApplicationEvents.class);
+		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, NODE_ID, 2,
+				appEventsMock, new SyncTaskExecutor(), parser, meterRegistry);
+		String line = "2022-10-29 13:37    ABC123  0101    SESTO   CUSTOMS";
+		Files.write(uploadDir.toPath().resolve("largeHandlingReportFile.csv"), List.of(line, line, line, line, line));
+
+		scanUntilStable(scanner);
+
+		verify(appEventsMock, times(3)).receivedHandlingEventRegistrationAttempts(captor.capture());
+		assertThat(captor.getAllValues()).extracting(List::size).containsExactly(2, 2, 1);
+		assertThat(meterRegistry.get("cargotracker.upload.lines").tag("outcome", "accepted").counter().count())
+			.isEqualTo(5);
+		Stream<Path> files = Files.list(parseFailureDir.toPath());
+		assertThat(files.count()).isEqualTo(0);
+		files.close();
+	}
+
+	@Test
+	void shouldImportFilesConcurrently() throws Exception {
+		ApplicationEvents appEventsMock = mock(ApplicationEvents.class);
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(4);
+		taskExecutor.initialize();
+		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, NODE_ID, 500,
+				appEventsMock, taskExecutor, parser, meterRegistry);
+		String line = "2022-10-29 13:37    ABC123  0101    SESTO   CUSTOMS";
+		for (int i = 0; i < 8; i++) {
+			Files.write(uploadDir.toPath().resolve("handlingReportFile" + i + ".csv"), List.of(line));
+		}
+
+		try {
+			scanUntilStable(scanner);
+		}
+		finally {
+			taskExecutor.shutdown();
+		}
+
+		verify(appEventsMock, times(8)).receivedHandlingEventRegistrationAttempts(anyList());
+		Stream<Path> files = Files.list(uploadDir.toPath());
+		assertThat(files.filter(Files::isRegularFile).count()).isEqualTo(0);
+		files.close();
+		Stream<Path> processing = Files.list(uploadDir.toPath().resolve("processing"));
+		assertThat(processing.count()).isEqualTo(0);
+		processing.close();
+	}
+
+	@Test
+	void shouldOnlyImportFilesThatAreNoLongerWritten() throws Exception {
+		ApplicationEvents appEventsMock = mock(ApplicationEvents.class);
+		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, NODE_ID, 500,
+				appEventsMock, new SyncTaskExecutor(), parser, meterRegistry);
+		String line = "2022-10-29 13:37    ABC123  0101    SESTO   CUSTOMS";
+		Path file = uploadDir.toPath().resolve("handlingReportFile.csv");
+		Files.write(file, List.of(line));
+
+		scanner.run();
+		Files.write(file, List.of(line), StandardOpenOption.APPEND);
+		scanner.run();
+		verifyNoInteractions(appEventsMock);
+		scanner.run();
+
+		verify(appEventsMock).receivedHandlingEventRegistrationAttempts(argThat(attempts -> attempts.size() == 2));
+	}
+
+	@Test
+	void shouldImportFileWithDoneMarkerRightAway() throws Exception {
+		ApplicationEvents appEventsMock = mock(ApplicationEvents.class);
+		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, NODE_ID, 500,
+				appEventsMock, new SyncTaskExecutor(), parser, meterRegistry);
+		Files.write(uploadDir.toPath().resolve("handlingReportFile.csv"),
+				List.of("2022-10-29 13:37    ABC123  0101    SESTO   CUSTOMS"));
+		Files.createFile(uploadDir.toPath().resolve("handlingReportFile.csv.done"));
+
+		scanner.run();
+
+		verify(appEventsMock).receivedHandlingEventRegistrationAttempts(anyList());
+		assertThat(uploadDir.toPath().resolve("handlingReportFile.csv.done")).doesNotExist();
+	}
+
+	@Test
+	void shouldNotReplaceFileClaimedUnderTheSameName() throws Exception {
+		ApplicationEvents appEventsMock = mock(ApplicationEvents.class);
+		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, NODE_ID, 500,
+				appEventsMock, new SyncTaskExecutor(), parser, meterRegistry);
+		String line = "2022-10-29 13:37    ABC123  0101    SESTO   CUSTOMS";
+		// Being imported by another node
+		Path processing = Files.createDirectories(uploadDir.toPath().resolve("processing"));
+		Path claimed = processing.resolve(
+				"handlingReportFile.csv" + UploadDirectoryScanner.CLAIM_SEPARATOR + "node-2-" + UUID.randomUUID());
+		Files.write(claimed, List.of(line, line));
+		Files.write(uploadDir.toPath().resolve("handlingReportFile.csv"), List.of(line));
+
+		scanUntilStable(scanner);
+
+		verify(appEventsMock).receivedHandlingEventRegistrationAttempts(argThat(attempts -> attempts.size() == 1));
+		assertThat(Files.readAllLines(claimed)).hasSize(2);
+	}
+
+	@Test
+	void shouldImportFilesClaimedBeforeRestart() throws Exception {
+		ApplicationEvents appEventsMock = mock(ApplicationEvents.class);
+		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, NODE_ID, 500,
+				appEventsMock, new SyncTaskExecutor(), parser, meterRegistry);
+		String line = "2022-10-29 13:37    ABC123  0101    SESTO   CUSTOMS";
+		Path processing = Files.createDirectories(uploadDir.toPath().resolve("processing"));
+		String claimed = "handlingReportFile.csv" + UploadDirectoryScanner.CLAIM_SEPARATOR;
+		Path stranded = processing.resolve(claimed + NODE_ID + "-" + UUID.randomUUID());
+		Path ofOtherNode = processing.resolve(claimed + NODE_ID + "-a-" + UUID.randomUUID());
+		Files.write(stranded, List.of(line));
+		Files.write(ofOtherNode, List.of(line));
+
+		scanner.run();
+		scanner.run();
+
+		verify(appEventsMock).receivedHandlingEventRegistrationAttempts(anyList());
+		assertThat(stranded).doesNotExist();
+		assertThat(ofOtherNode).exists();
+	}
+
+	@Test
+	void shouldSkipPublishedLinesOfFilesClaimedBeforeRestart() throws Exception {
+		ApplicationEvents appEventsMock = mock(ApplicationEvents.class);
+		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, NODE_ID, 500,
+				appEventsMock, new SyncTaskExecutor(), parser, meterRegistry);
+		String line = "2022-10-29 13:37    ABC123  0101    SESTO   CUSTOMS";
+		Path processing = Files.createDirectories(uploadDir.toPath().resolve("processing"));
+		Path stranded = processing.resolve("handlingReportFile.csv" + UploadDirectoryScanner.CLAIM_SEPARATOR + NODE_ID
+				+ "-" + UUID.randomUUID());
+		Files.write(stranded, List.of(line, line, line, line, line));
+		Path progress = stranded.resolveSibling(stranded.getFileName() + UploadDirectoryScanner.PROGRESS_SUFFIX);
+		Files.writeString(progress, "2");
+
+		scanner.run();
+
+		verify(appEventsMock).receivedHandlingEventRegistrationAttempts(argThat(attempts -> attempts.size() == 3));
+		assertThat(stranded).doesNotExist();
+		assertThat(progress).doesNotExist();
+	}
+
+	@Test
+	void shouldResumeRetriedFileAfterPublishedLines() throws Exception {
+		ApplicationEvents appEventsMock = mock(ApplicationEvents.class);
+		doNothing().doThrow(new IllegalStateException("Outbox unavailable"))
+			.doNothing()
+			.when(appEventsMock)
+			.receivedHandlingEventRegistrationAttempts(anyList());
+		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, NODE_ID, 2,
+				appEventsMock, new SyncTaskExecutor(), parser, meterRegistry);
+		String line = "2022-10-29 13:37    ABC123  0101    SESTO   CUSTOMS";
+		Files.write(uploadDir.toPath().resolve("handlingReportFile.csv"), List.of(line, line, line, line, line));
+
+		scanUntilStable(scanner);
+
+		Path failed = parseFailureDir.toPath().resolve("handlingReportFile.csv");
+		Path progress = parseFailureDir.toPath()
+			.resolve("handlingReportFile.csv" + UploadDirectoryScanner.PROGRESS_SUFFIX);
+		assertThat(failed).exists();
+		assertThat(progress).hasContent("2");
+
+		// Retried by moving the file and its progress back
+		Files.move(progress, uploadDir.toPath().resolve(progress.getFileName()));
+		Files.move(failed, uploadDir.toPath().resolve(failed.getFileName()));
+		scanUntilStable(scanner);
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<HandlingEventRegistrationAttempt>> captor = ArgumentCaptor.forClass(List.class);
+		verify(appEventsMock, times(4)).receivedHandlingEventRegistrationAttempts(captor.capture());
+		assertThat(captor.getAllValues()).extracting(List::size).containsExactly(2, 2, 2, 1);
+		Stream<Path> files = Files.list(uploadDir.toPath());
+		assertThat(files.filter(Files::isRegularFile).count()).isEqualTo(0);
+		files.close();
+	}
+
+	/**
+	 * Files without a marker are only imported once a scan finds them unchanged since the
+	 * previous one.
+	 */
+	private static void scanUntilStable(UploadDirectoryScanner scanner) {
+		scanner.scan().join();
+		scanner.scan().join();
 	}
 
-}
\ No newline at end of file
+}
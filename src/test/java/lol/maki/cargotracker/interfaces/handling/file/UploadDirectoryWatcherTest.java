@@ -0,0 +1,72 @@
+package lol.maki.cargotracker.interfaces.handling.file;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lol.maki.cargotracker.application.ApplicationEvents;
+import lol.maki.cargotracker.infrastructure.persistence.inmemory.LocationRepositoryInMem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class UploadDirectoryWatcherTest {
+
+	private static final String LINE = "2022-10-29 13:37    ABC123  0101    SESTO   CUSTOMS\n";
+
+	private File uploadDir;
+
+	private ApplicationEvents appEventsMock;
+
+	private UploadDirectoryWatcher watcher;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		uploadDir = new File(Files.createTempDirectory("upload").toUri());
+		File parseFailureDir = new File(Files.createTempDirectory("parseFailure").toUri());
+		appEventsMock = mock(ApplicationEvents.class);
+		UploadDirectoryScanner scanner = new UploadDirectoryScanner(uploadDir, parseFailureDir, "node-1", 500,
+				appEventsMock, new SyncTaskExecutor(),
+				new LineHandlingReportFileParser(new LocationRepositoryInMem()), new SimpleMeterRegistry());
+		watcher = new UploadDirectoryWatcher(uploadDir, Duration.ofMillis(50), scanner);
+		watcher.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		watcher.stop();
+	}
+
+	@Test
+	void shouldImportFileOnceItsSizeIsStable() throws Exception {
+		Files.writeString(uploadDir.toPath().resolve("handlingReportFile.csv"), LINE);
+
+		verify(appEventsMock, timeout(5_000)).receivedHandlingEventRegistrationAttempts(anyList());
+		assertThat(uploadDir.toPath().resolve("handlingReportFile.csv")).doesNotExist();
+	}
+
+	@Test
+	void shouldImportFileAsSoonAsDoneMarkerAppears() throws Exception {
+		Path file = uploadDir.toPath().resolve("handlingReportFile.csv");
+		try (OutputStream out = Files.newOutputStream(file)) {
+			out.write(LINE.getBytes(StandardCharsets.UTF_8));
+			out.flush();
+			Files.createFile(uploadDir.toPath().resolve("handlingReportFile.csv.done"));
+		}
+
+		verify(appEventsMock, timeout(5_000)).receivedHandlingEventRegistrationAttempts(
+				argThat((List<?> attempts) -> attempts.size() == 1));
+		assertThat(uploadDir.toPath().resolve("handlingReportFile.csv.done")).doesNotExist();
+	}
+
+}
@@ -0,0 +1,84 @@
+package lol.maki.cargotracker.interfaces.tracking.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lol.maki.cargotracker.application.CargoDeliveryBroadcast;
+import lol.maki.cargotracker.application.CargoDeliveryUpdated;
+import lol.maki.cargotracker.domain.model.cargo.DeliveryVersion;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CargoTrackingCacheTest {
+
+	private static final TrackingId TRACKING_ID = new TrackingId("ABC123");
+
+	private static final DeliveryVersion VERSION = new DeliveryVersion(Instant.parse("2009-03-02T10:00:00Z"), 1L);
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private CargoTrackingCache cache;
+
+	private AtomicInteger loads;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		cache = new CargoTrackingCache("maximumSize=100,recordStats", meterRegistry);
+		loads = new AtomicInteger();
+	}
+
+	@Test
+	void shouldBuildProjectionOncePerLocale() {
+		CargoTrackingCache.Projection first = cache.get(TRACKING_ID, Locale.ENGLISH, this::load);
+		CargoTrackingCache.Projection second = cache.get(TRACKING_ID, Locale.ENGLISH, this::load);
+		cache.get(TRACKING_ID, Locale.CHINESE, this::load);
+
+		assertThat(second).isSameAs(first);
+		assertThat(second.version()).isEqualTo(VERSION);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void shouldRebuildProjectionAfterDeliveryUpdate() {
+		CargoTrackingCache.Projection before = cache.get(TRACKING_ID, Locale.ENGLISH, this::load);
+
+		cache.onCargoDeliveryUpdated(new CargoDeliveryUpdated(TRACKING_ID));
+		CargoTrackingCache.Projection after = cache.get(TRACKING_ID, Locale.ENGLISH, this::load);
+
+		assertThat(after).isNotSameAs(before);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void shouldRebuildProjectionAfterDeliveryUpdateOnAnyNode() {
+		CargoTrackingCache.Projection before = cache.get(TRACKING_ID, Locale.ENGLISH, this::load);
+
+		cache.onCargoDeliveryBroadcast(new CargoDeliveryBroadcast(TRACKING_ID));
+		CargoTrackingCache.Projection after = cache.get(TRACKING_ID, Locale.ENGLISH, this::load);
+
+		assertThat(after).isNotSameAs(before);
+		assertThat(cache.get(TRACKING_ID, Locale.ENGLISH, this::load)).isSameAs(after);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void shouldNotCacheUnknownCargo() {
+		assertThat(cache.get(TRACKING_ID, Locale.ENGLISH, () -> null)).isNull();
+		assertThat(meterRegistry.get("cache.size").tag("cache", "cargoTracking").gauge().value()).isZero();
+
+		assertThat(cache.get(TRACKING_ID, Locale.ENGLISH, this::load)).isNotNull();
+	}
+
+	private CargoTrackingCache.Projection load() {
+		return new CargoTrackingCache.Projection(VERSION, new CargoTrackingDTO(TRACKING_ID.idString(),
+				"In port " + loads.incrementAndGet(), "Stockholm", "?", "", false, List.of()));
+	}
+
+}
@@ -2,7 +2,10 @@ package lol.maki.cargotracker.interfaces.tracking.api;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lol.maki.cargotracker.application.CargoInspectionService;
+import lol.maki.cargotracker.domain.model.cargo.TrackingId;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.HttpStatus;
@@ -15,9 +18,16 @@ import org.springframework.web.util.UriTemplate;
 import lol.maki.cargotracker.Application;
 
 import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
 @SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class CargoTrackingRestControllerIntegrationTest {
@@ -25,8 +35,13 @@ class CargoTrackingRestControllerIntegrationTest {
 	@LocalServerPort
 	private int port;
 
+	@Autowired
+	private CargoInspectionService cargoInspectionService;
+
 	private final RestTemplate restTemplate = new RestTemplate();
 
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
 	@Transactional
 	@Test
 	void shouldReturn200ResponseAndJsonWhenRequestingCargoWithIdABC123() throws Exception {
@@ -42,6 +57,55 @@ class CargoTrackingRestControllerIntegrationTest {
 		assertThat(response.getBody()).isEqualTo(expected);
 	}
 
+	@Test
+	void shouldReturn304ResponseWhenETagMatches() throws Exception {
+		URI uri = new UriTemplate("http://localhost:{port}/api/track/ABC123").expand(port);
+		ResponseEntity<String> first = restTemplate.exchange(RequestEntity.get(uri).build(), String.class);
+		String eTag = first.getHeaders().getETag();
+		assertThat(eTag).isNotNull().doesNotStartWith("W/");
+		assertThat(first.getHeaders().getLastModified()).isPositive();
+
+		ResponseEntity<String> second = restTemplate.exchange(RequestEntity.get(uri).ifNoneMatch(eTag).build(),
+				String.class);
+
+		assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(second.getBody()).isNull();
+		assertThat(second.getHeaders().getETag()).isEqualTo(eTag);
+	}
+
+	@Test
+	void shouldStreamTrackingInformationWhenDeliveryIsUpdated() throws Exception {
+		URI uri = new UriTemplate("http://localhost:{port}/api/track/ABC123/events").expand(port);
+		HttpRequest request = HttpRequest.newBuilder(uri).header("Accept", "text/event-stream").build();
+
+		HttpResponse<Stream<String>> response = HttpClient.newHttpClient()
+			.send(request, HttpResponse.BodyHandlers.ofLines());
+
+		assertThat(response.statusCode()).isEqualTo(200);
+		try (Stream<String> lines = response.body()) {
+			Iterator<String> events = lines.filter(line -> line.startsWith("data:")).iterator();
+			assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+				assertThat(objectMapper.readTree(events.next().substring("data:".length())).get("trackingId").asText())
+					.isEqualTo("ABC123");
+
+				cargoInspectionService.inspectCargo(new TrackingId("ABC123"));
+
+				assertThat(objectMapper.readTree(events.next().substring("data:".length())).get("trackingId").asText())
+					.isEqualTo("ABC123");
+			});
+		}
+	}
+
+	@Test
+	void shouldReturn404ResponseWhenStreamingUnknownCargo() throws Exception {
+		URI uri = new UriTemplate("http://localhost:{port}/api/track/MISSING/events").expand(port);
+		HttpRequest request = HttpRequest.newBuilder(uri).header("Accept", "text/event-stream").build();
+
+		HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+
+		assertThat(response.statusCode()).isEqualTo(404);
+	}
+
 	@Test
 	void shouldReturnValidationErrorResponseWhenInvalidHandlingReportIsSubmitted() throws Exception {
 		URI uri = new UriTemplate("http://localhost:{port}/api/track/MISSING").expand(port);
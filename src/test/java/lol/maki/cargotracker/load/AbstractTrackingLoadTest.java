@@ -0,0 +1,122 @@
+package lol.maki.cargotracker.load;
+
+import lol.maki.cargotracker.Application;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.lang.invoke.MethodHandles;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tracks cargo with many concurrent clients and logs the latency percentiles, to compare
+ * the thread configurations of the subclasses. Every request blocks on a database query
+ * for the delivery version of the cargo.
+ * <p>
+ * Both configurations use the same connection pool, so that only the threads differ, and
+ * the client has a thread for every client connection, so that it doesn't limit the
+ * throughput itself.
+ * <p>
+ * Run with {@code ./mvnw test -Pload-test}.
+ */
+@Tag("load")
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = { "spring.datasource.hikari.maximum-pool-size=20",
+				"spring.datasource.hikari.minimum-idle=20", "spring.datasource.hikari.connection-timeout=5000" })
+abstract class AbstractTrackingLoadTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private static final int CLIENTS = 400;
+
+	private static final int REQUESTS_PER_CLIENT = 50;
+
+	private static final int WARMUP_REQUESTS = 1000;
+
+	private static final List<String> TRACKING_IDS = List.of("ABC123", "JKL567", "UNKNOWN");
+
+	@LocalServerPort
+	private int port;
+
+	private final HttpClient httpClient = HttpClient.newBuilder()
+		.connectTimeout(Duration.ofSeconds(10))
+		.executor(Executors.newFixedThreadPool(CLIENTS))
+		.build();
+
+	/**
+	 * @return description of the thread configuration under test
+	 */
+	abstract String threads();
+
+	@Test
+	void trackCargoConcurrently() throws Exception {
+		for (int i = 0; i < WARMUP_REQUESTS; i++) {
+			track(i);
+		}
+
+		final long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+		final AtomicInteger failures = new AtomicInteger();
+		final ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+		final long start = System.nanoTime();
+		try {
+			final List<Future<?>> futures = new ArrayList<>(CLIENTS);
+			for (int client = 0; client < CLIENTS; client++) {
+				final int offset = client * REQUESTS_PER_CLIENT;
+				futures.add(clients.submit(() -> {
+					for (int i = offset; i < offset + REQUESTS_PER_CLIENT; i++) {
+						final long requestStart = System.nanoTime();
+						final int status = track(i);
+						latencies[i] = System.nanoTime() - requestStart;
+						if (status != 200 && status != 404) {
+							failures.incrementAndGet();
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			clients.shutdown();
+		}
+		final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+		Arrays.sort(latencies);
+		logger.info("{}: {} requests from {} clients in {} ms ({} requests/s), latency p50={} ms, p99={} ms, "
+				+ "p99.9={} ms, max={} ms", threads(), latencies.length, CLIENTS, elapsed.toMillis(),
+				latencies.length * 1000L / Math.max(1, elapsed.toMillis()), millis(latencies, 0.5),
+				millis(latencies, 0.99), millis(latencies, 0.999), millis(latencies, 1.0));
+		assertThat(failures).hasValue(0);
+	}
+
+	private int track(int i) throws Exception {
+		final URI uri = URI.create(
+				"http://localhost:" + port + "/api/track/" + TRACKING_IDS.get(i % TRACKING_IDS.size()));
+		final HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+		return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+
+	private static double millis(long[] sortedLatencies, double percentile) {
+		final int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+		return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+	}
+
+}
@@ -0,0 +1,10 @@
+package lol.maki.cargotracker.load;
+
+class PlatformThreadsTrackingLoadTest extends AbstractTrackingLoadTest {
+
+	@Override
+	String threads() {
+		return "Platform threads";
+	}
+
+}
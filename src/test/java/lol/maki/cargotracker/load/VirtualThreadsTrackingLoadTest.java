@@ -0,0 +1,16 @@
+package lol.maki.cargotracker.load;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("virtual-threads")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadsTrackingLoadTest extends AbstractTrackingLoadTest {
+
+	@Override
+	String threads() {
+		return "Virtual threads";
+	}
+
+}
@@ -324,11 +324,14 @@ class CargoLifecycleScenarioTest {
 		handlingEventFactory = new HandlingEventFactory(cargoRepository, voyageRepository, locationRepository);
 
 		cargoInspectionService = new CargoInspectionService(applicationEvents, cargoRepository,
-				handlingEventRepository);
+				handlingEventRepository, event -> {
+				});
 		handlingEventService = new HandlingEventService(handlingEventRepository, applicationEvents,
 				handlingEventFactory);
 		CargoFactory cargoFactory = new CargoFactory(locationRepository, cargoRepository);
-		bookingService = new BookingService(cargoRepository, locationRepository, routingService, cargoFactory);
+		bookingService = new BookingService(cargoRepository, locationRepository, routingService, cargoFactory,
+				event -> {
+				});
 
 		// Circular dependency when doing synchrounous calls
 		((SynchronousApplicationEventsStub) applicationEvents).setCargoInspectionService(cargoInspectionService);